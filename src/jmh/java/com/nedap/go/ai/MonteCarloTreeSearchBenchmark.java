@@ -0,0 +1,56 @@
+package com.nedap.go.ai;
+
+import com.nedap.go.gamelogic.Goban;
+import com.nedap.go.gamelogic.Stone;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how the search scales with threads in every SearchMode: every invocation runs a
+ * search of a fixed number of playouts from the empty board. With perfect scaling the time
+ * halves whenever the number of threads doubles, up to the number of cores.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MonteCarloTreeSearchBenchmark {
+
+  @Param({"9", "19"})
+  private int boardSize;
+
+  @Param({"1", "2", "4", "8"})
+  private int threads;
+
+  @Param({"TREE", "ROOT", "LEAF"})
+  private SearchMode mode;
+
+  private Goban goban;
+  private MonteCarloTreeSearch search;
+
+  @Setup
+  public void setUp() {
+    goban = new Goban(boardSize);
+    search = new MonteCarloTreeSearch(0, 20000 * 9 * 9 / (boardSize * boardSize), threads,
+        mode, new Random(1));
+  }
+
+  @Benchmark
+  public int search() {
+    return search.search(goban, Stone.BLACK);
+  }
+}
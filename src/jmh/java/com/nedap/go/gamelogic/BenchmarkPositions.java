@@ -0,0 +1,90 @@
+package com.nedap.go.gamelogic;
+
+import java.util.Random;
+
+/**
+ * The board positions the benchmarks run on. Every position is built the same way on every
+ * run, so results of different engine versions can be compared directly. In all positions
+ * it is black's turn.
+ * empty: an empty board.
+ * midgame: a random game with a fixed seed that has filled about 40% of the board.
+ * captures: single white stones that black surrounds on three sides, so every point next
+ * to their last liberty captures a stone.
+ */
+
+public final class BenchmarkPositions {
+
+  public static final String EMPTY = "empty";
+  public static final String MIDGAME = "midgame";
+  public static final String CAPTURES = "captures";
+
+  private static final long SEED = 20240501L;
+
+  private BenchmarkPositions() {
+  }
+
+  public static Goban create(int boardSize, String position) {
+    Goban goban = new Goban(boardSize);
+    if (MIDGAME.equals(position)) {
+      for (int move : midgameMoves(boardSize)) {
+        goban.play(move, goban.getMoveCount() % 2 == 0 ? Stone.BLACK : Stone.WHITE);
+      }
+    } else if (CAPTURES.equals(position)) {
+      for (int row = 1; row < boardSize - 1; row += 3) {
+        for (int col = 1; col < boardSize - 1; col += 3) {
+          int point = row * boardSize + col;
+          goban.placeStone(point, Stone.WHITE);
+          goban.placeStone(point - boardSize, Stone.BLACK);
+          goban.placeStone(point + boardSize, Stone.BLACK);
+          goban.placeStone(point - 1, Stone.BLACK);
+        }
+      }
+    } else if (!EMPTY.equals(position)) {
+      throw new IllegalArgumentException("Unknown position: " + position);
+    }
+    return goban;
+  }
+
+  /**
+   * Returns the moves black is going to try in position: the capturing moves in the
+   * captures position and every legal move otherwise.
+   */
+
+  public static int[] candidateMoves(Goban goban, String position) {
+    int boardSize = goban.getBoardSize();
+    int[] moves = new int[boardSize * boardSize];
+    int count = 0;
+    if (CAPTURES.equals(position)) {
+      for (int row = 1; row < boardSize - 1; row += 3) {
+        for (int col = 1; col < boardSize - 1; col += 3) {
+          moves[count++] = row * boardSize + col + 1;
+        }
+      }
+    } else {
+      count = goban.getLegalMoves(Stone.BLACK, moves);
+    }
+    int[] candidates = new int[count];
+    System.arraycopy(moves, 0, candidates, 0, count);
+    return candidates;
+  }
+
+  /**
+   * Returns an even number of alternating black and white moves, about 40% of the number of
+   * positions, taken at random from the legal moves with a fixed seed.
+   */
+
+  public static int[] midgameMoves(int boardSize) {
+    Random random = new Random(SEED + boardSize);
+    Goban goban = new Goban(boardSize);
+    int[] legalMoves = new int[boardSize * boardSize];
+    int[] moves = new int[(boardSize * boardSize * 2 / 5) & ~1];
+    Stone stone = Stone.BLACK;
+    for (int i = 0; i < moves.length; i++) {
+      int count = goban.getLegalMoves(stone, legalMoves);
+      moves[i] = legalMoves[random.nextInt(count)];
+      goban.play(moves[i], stone);
+      stone = stone.other();
+    }
+    return moves;
+  }
+}
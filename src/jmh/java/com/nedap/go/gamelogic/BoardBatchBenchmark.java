@@ -0,0 +1,84 @@
+package com.nedap.go.gamelogic;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures BoardBatch on 1024 boards that all hold the midgame position of
+ * BenchmarkPositions: the legal moves and the area score of every board in one batched call
+ * each, and a full self-play step that copies every board and plays one move on the copy.
+ * Scores are per batch, so divide by the board count for the cost of a single board.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBatchBenchmark {
+
+  private static final int BOARDS = 1024;
+
+  @Param({"9", "13", "19"})
+  private int boardSize;
+
+  private BoardBatch batch;
+  private int[] boards;
+  private int[] copies;
+  private int[] moves;
+  private long[] masks;
+  private int[] margins;
+  private boolean[] played;
+
+  @Setup
+  public void setUp() {
+    batch = new BoardBatch(boardSize, 2 * BOARDS);
+    int[] midgame = BenchmarkPositions.midgameMoves(boardSize);
+    Goban goban = BenchmarkPositions.create(boardSize, BenchmarkPositions.MIDGAME);
+    int[] candidates = BenchmarkPositions.candidateMoves(goban, BenchmarkPositions.MIDGAME);
+    boards = new int[BOARDS];
+    copies = new int[BOARDS];
+    moves = new int[BOARDS];
+    for (int board = 0; board < BOARDS; board++) {
+      for (int i = 0; i < midgame.length; i++) {
+        batch.play(board, midgame[i], i % 2 == 0 ? Stone.BLACK : Stone.WHITE);
+      }
+      boards[board] = board;
+      copies[board] = BOARDS + board;
+      moves[board] = candidates[board % candidates.length];
+    }
+    masks = new long[BOARDS * batch.getMaskWords()];
+    margins = new int[BOARDS];
+    played = new boolean[BOARDS];
+  }
+
+  @Benchmark
+  public int legalMask() {
+    return batch.legalMask(boards, BOARDS, Stone.BLACK, masks);
+  }
+
+  @Benchmark
+  public int[] score() {
+    batch.score(boards, BOARDS, margins);
+    return margins;
+  }
+
+  @Benchmark
+  public int copyAndPlay() {
+    for (int board = 0; board < BOARDS; board++) {
+      batch.copyBoard(board, copies[board]);
+    }
+    return batch.play(copies, moves, BOARDS, Stone.BLACK, played);
+  }
+}
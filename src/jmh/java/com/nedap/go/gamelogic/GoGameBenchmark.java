@@ -0,0 +1,52 @@
+package com.nedap.go.gamelogic;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures GoGame.makeMove the way the server uses it: a new game is started and the
+ * midgame move sequence of BenchmarkPositions is played into it, alternating between both
+ * players. The score is the time for the whole sequence, including creating the game.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GoGameBenchmark {
+
+  @Param({"9", "13", "19"})
+  private int boardSize;
+
+  private int[] moves;
+  private GoPlayer player1;
+  private GoPlayer player2;
+
+  @Setup
+  public void setUp() {
+    moves = BenchmarkPositions.midgameMoves(boardSize);
+    player1 = new GoPlayer("black");
+    player2 = new GoPlayer("white");
+  }
+
+  @Benchmark
+  public GoGame playMidgame() throws IllegalMoveException, NotYourTurnException {
+    GoGame game = new GoGame(boardSize, player1, player2);
+    for (int i = 0; i < moves.length; i++) {
+      game.makeMove(moves[i], i % 2 == 0 ? player1 : player2);
+    }
+    return game;
+  }
+}
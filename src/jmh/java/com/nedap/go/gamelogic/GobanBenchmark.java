@@ -0,0 +1,115 @@
+package com.nedap.go.gamelogic;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the Goban operations on empty, midgame and capture-heavy positions of every board
+ * size. Each benchmark cycles through the candidate moves of the position, so a single lucky
+ * point does not decide the result. Moves are undone right away, so the position is the same
+ * for every invocation. Run with -prof gc to see the allocation rate next to the throughput.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GobanBenchmark {
+
+  @Param({"9", "13", "19"})
+  private int boardSize;
+
+  @Param({BenchmarkPositions.EMPTY, BenchmarkPositions.MIDGAME, BenchmarkPositions.CAPTURES})
+  private String position;
+
+  private Goban goban;
+  private int[] moves;
+  private int[] chainStarts;
+  private int[] legalMoves;
+  private StoneChain stoneChain;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    goban = BenchmarkPositions.create(boardSize, position);
+    moves = BenchmarkPositions.candidateMoves(goban, position);
+    legalMoves = new int[boardSize * boardSize];
+    stoneChain = new StoneChain(boardSize);
+
+    int count = 0;
+    int[] stones = new int[boardSize * boardSize];
+    for (int point = 0; point < boardSize * boardSize; point++) {
+      if (goban.getStone(point) != Stone.EMPTY) {
+        stones[count++] = point;
+      }
+    }
+    if (count == 0) {
+      stones[count++] = 0;
+    }
+    chainStarts = new int[count];
+    System.arraycopy(stones, 0, chainStarts, 0, count);
+  }
+
+  @Benchmark
+  public long makeMove() throws IllegalMoveException {
+    goban.makeMove(nextMove(), Stone.BLACK);
+    long hash = goban.getHash();
+    goban.undo();
+    return hash;
+  }
+
+  @Benchmark
+  public boolean attemptMove() throws IllegalMoveException {
+    return goban.attemptMove(nextMove(), Stone.BLACK);
+  }
+
+  @Benchmark
+  public List<Integer> getValidMoves() {
+    return goban.getValidMoves(Stone.BLACK);
+  }
+
+  @Benchmark
+  public int getLegalMoves() {
+    return goban.getLegalMoves(Stone.BLACK, legalMoves);
+  }
+
+  @Benchmark
+  public StoneChain getStoneChain() {
+    int start = nextChainStart();
+    return goban.getStoneChain(start, goban.getStone(start));
+  }
+
+  @Benchmark
+  public StoneChain getStoneChainReused() {
+    int start = nextChainStart();
+    return goban.getStoneChain(start, goban.getStone(start), stoneChain);
+  }
+
+  @Benchmark
+  public AreaScore score() {
+    return goban.score();
+  }
+
+  private int nextMove() {
+    next = next + 1 < moves.length ? next + 1 : 0;
+    return moves[next];
+  }
+
+  private int nextChainStart() {
+    next = next + 1 < chainStarts.length ? next + 1 : 0;
+    return chainStarts[next];
+  }
+}
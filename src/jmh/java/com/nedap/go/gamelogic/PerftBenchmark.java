@@ -0,0 +1,51 @@
+package com.nedap.go.gamelogic;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Times a Perft count of every start position on Goban and BitGoban side by side. The node
+ * counts do not depend on the engine (testPerft checks them), so dividing the count by the
+ * time per operation gives the nodes per second of each engine.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PerftBenchmark {
+
+  @Param({"EMPTY_9X9", "KO_5X5", "EYES_5X5"})
+  private Perft.StartPosition position;
+
+  @Param({"Goban", "BitGoban"})
+  private String engine;
+
+  @Param({"3"})
+  private int depth;
+
+  private Perft perft;
+
+  @Setup
+  public void setUp() {
+    Board board = engine.equals("Goban") ? position.createGoban() : position.createBitGoban();
+    perft = new Perft(board, depth);
+  }
+
+  @Benchmark
+  public long count() {
+    return perft.count(position.getTurn(), depth);
+  }
+}
@@ -2,17 +2,34 @@ package com.nedap.go.ai;
 
 import com.nedap.go.client.GoClient;
 import com.nedap.go.client.GoClientTUI;
-import com.nedap.go.gamelogic.Stone;
 import java.io.IOException;
 import java.net.InetAddress;
+import java.util.Random;
 
 public class GoAIClient extends GoClient {
 
-  private GoNaivePlayer aiPlayer;
+  public static final long DEFAULT_MOVE_TIME_MILLIS = 2000;
+
+  private final MonteCarloTreeSearch search;
+  private GoAIPlayer aiPlayer;
 
   public GoAIClient(InetAddress address, int port, GoClientTUI client)
       throws IOException {
+    this(address, port, client, DEFAULT_MOVE_TIME_MILLIS,
+        Runtime.getRuntime().availableProcessors(), SearchMode.TREE);
+  }
+
+  /**
+   * @param moveTimeMillis the time the AI may search for every move, in milliseconds.
+   * @param searchThreads  the number of threads that search together.
+   * @param searchMode     how the threads share the search.
+   */
+
+  public GoAIClient(InetAddress address, int port, GoClientTUI client, long moveTimeMillis,
+      int searchThreads, SearchMode searchMode) throws IOException {
     super(address, port, client);
+    search = new MonteCarloTreeSearch(moveTimeMillis, 0, searchThreads, searchMode,
+        new Random());
   }
 
   @Override
@@ -23,7 +40,7 @@ public class GoAIClient extends GoClient {
 
   @Override
   public void handleGameStart(String name1, String name2) {
-    aiPlayer = new GoNaivePlayer(this);
+    aiPlayer = new GoMCTSPlayer(this, search);
     setGUI();
     super.handleGameStart(name1, name2);
   }
@@ -0,0 +1,11 @@
+package com.nedap.go.ai;
+
+/**
+ * A computer player for a GoAIClient. makeMove is called whenever the server asks the
+ * client for a move, and sends a move or a pass through the client.
+ */
+
+public interface GoAIPlayer {
+
+  void makeMove();
+}
@@ -0,0 +1,50 @@
+package com.nedap.go.ai;
+
+import com.nedap.go.gamelogic.IllegalMoveException;
+import com.nedap.go.gamelogic.NotYourTurnException;
+import com.nedap.go.server.GoProtocol;
+
+public class GoMCTSPlayer implements GoAIPlayer {
+
+  private final GoAIClient client;
+  private final MonteCarloTreeSearch search;
+
+  public GoMCTSPlayer(GoAIClient client, MonteCarloTreeSearch search) {
+    this.client = client;
+    this.search = search;
+  }
+
+  /**
+   * Searches the current position within the budget of the search and plays the move that
+   * was tried most often, or passes when passing was. The number of playouts, the playout
+   * rate and the transposition table hits are reported to the TUI, so the strength per move
+   * can be tuned with the budget; with several search threads, so are the rate per thread
+   * and the load balance.
+   */
+
+  @Override
+  public void makeMove() {
+    int move = search.search(client.getGoban(), client.getStone(), client.getLastMovePass());
+    client.sendToTUI(String.format(
+        "Searched %d playouts in %d ms (%.0f playouts/s), win rate %.2f, %d transposition hits",
+        search.getPlayouts(), search.getElapsedMillis(), search.getPlayoutsPerSecond(),
+        search.getWinRate(), search.getTranspositionHits()));
+    if (search.getThreads() > 1) {
+      client.sendToTUI(String.format(
+          "%d threads, %s search: %.0f playouts/s per thread, load balance %.2f,"
+              + " %d expansion collisions", search.getThreads(), search.getMode(),
+          search.getPlayoutsPerSecondPerThread(), search.getLoadBalance(),
+          search.getCollisions()));
+    }
+    try {
+      if (move == MonteCarloTreeSearch.PASS) {
+        client.handleOutput(GoProtocol.PASS);
+      } else {
+        client.handleOutput(GoProtocol.MOVE + GoProtocol.SEPARATOR + move);
+      }
+    } catch (IllegalMoveException | NotYourTurnException | NumberFormatException |
+             IndexOutOfBoundsException e) {
+      client.sendToTUI(e.getMessage());
+    }
+  }
+}
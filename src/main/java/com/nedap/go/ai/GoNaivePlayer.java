@@ -1,26 +1,61 @@
 package com.nedap.go.ai;
 
+import com.nedap.go.gamelogic.Goban;
 import com.nedap.go.gamelogic.IllegalMoveException;
 import com.nedap.go.gamelogic.NotYourTurnException;
+import com.nedap.go.gamelogic.PassAliveAnalyzer;
+import com.nedap.go.gamelogic.Stone;
 import com.nedap.go.server.GoProtocol;
-import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
-public class GoNaivePlayer {
+public class GoNaivePlayer implements GoAIPlayer {
 
   private final GoAIClient client;
+  private Goban board;
+  private int[] validMoves;
+  private PassAliveAnalyzer analyzer;
+  private final PatternPolicy policy = new PatternPolicy();
 
   public GoNaivePlayer(GoAIClient client) {
     this.client = client;
   }
 
+  /**
+   * Plays a random legal move outside the settled regions, weighted by its 3x3 pattern.
+   * Own true eyes are never filled. Moves inside pass-alive chains or territory of either
+   * colour cannot change the result, so they are skipped; once fewer than three other moves
+   * are left, or none of them has a pattern worth playing, the player passes.
+   * The patterns are read from a private copy of the game board that keeps pattern codes,
+   * so the client's board does not pay for updating them.
+   */
+
+  @Override
   public void makeMove() {
-    List<Integer> validMoves = client.getGoban().getValidMoves(client.getStone());
+    Goban goban = client.getGoban();
+    int points = goban.getBoardSize() * goban.getBoardSize();
+    if (validMoves == null || validMoves.length != points) {
+      board = new Goban(goban.getBoardSize());
+      board.enablePatternCodes();
+      validMoves = new int[points];
+      analyzer = new PassAliveAnalyzer(goban.getBoardSize());
+    }
+    board.copyFrom(goban);
+    int legalCount = goban.getSensibleMoves(client.getStone(), validMoves);
+    Stone[] settled = analyzer.analyze(goban);
+    int moveCount = 0;
+    for (int i = 0; i < legalCount; i++) {
+      if (settled[validMoves[i]] == Stone.EMPTY) {
+        validMoves[moveCount++] = validMoves[i];
+      }
+    }
     try {
-      if (validMoves.size() < 3) {
+      int move = moveCount < 3 ? -1 : policy.selectMove(board, client.getStone(), validMoves,
+          moveCount, ThreadLocalRandom.current());
+      if (move < 0) {
         client.handleOutput(GoProtocol.PASS);
+      } else {
+        client.handleOutput(GoProtocol.MOVE + GoProtocol.SEPARATOR + move);
       }
-        int randomMove = validMoves.get((int) (Math.random() * validMoves.size()));
-        client.handleOutput(GoProtocol.MOVE + GoProtocol.SEPARATOR + randomMove);
     } catch (IllegalMoveException | NotYourTurnException | NumberFormatException |
              IndexOutOfBoundsException e) {
       client.sendToTUI(e.getMessage());
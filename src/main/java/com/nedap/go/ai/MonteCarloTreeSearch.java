@@ -0,0 +1,748 @@
+package com.nedap.go.ai;
+
+import com.nedap.go.gamelogic.AreaScorer;
+import com.nedap.go.gamelogic.GameRecord;
+import com.nedap.go.gamelogic.Goban;
+import com.nedap.go.gamelogic.PassAliveAnalyzer;
+import com.nedap.go.gamelogic.Stone;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chooses moves with Monte Carlo tree search. Every iteration walks down the tree with UCT
+ * selection, adds one node, finishes the game with a random playout and counts the result
+ * for every move on the way. A playout plays a random legal move that does not fill an own
+ * true eye, found by scanning the board from a random position, until both players pass.
+ * Two passes in a row inside the tree, or a pass right after the opponent passed in the
+ * game, end the game right away. Either way the final board is area scored with its
+ * pass-alive areas settled, like the server does, so all results measure the same thing.
+ * Selection blends the win rate of every move with its RAVE (all-moves-as-first) win rate:
+ * the results of all simulations in which the player to move played that position at any
+ * later point. These estimates are available after a handful of playouts, long before
+ * every move has been tried on its own, and count less as a move collects real visits.
+ * Different move orders often lead to the same position. The results of every position in
+ * the tree are also kept in a TranspositionTable, keyed by its hash and the player to move,
+ * which all threads share and which is kept from one search to the next. The first time a
+ * move is tried, the results already stored for the position it leads to are added to the
+ * move, so a transposition, or a position searched for an earlier move, starts out with
+ * what is known about it instead of from nothing.
+ * The search can run on several threads in one of the ways of SearchMode: sharing one tree
+ * (see SearchNode), each in its own tree, or running the playouts of every leaf together.
+ * Every thread plays its moves on a private Goban and undoes them afterwards, so the search
+ * allocates only its tree. The search stops when the time or the playout budget is used up.
+ * A MonteCarloTreeSearch runs one search at a time; call search from one thread only.
+ */
+
+public class MonteCarloTreeSearch {
+
+  public static final int PASS = GameRecord.PASS;
+
+  /**
+   * The number of visits after which a move's own win rate and its RAVE win rate count
+   * equally in selection.
+   */
+  public static final int DEFAULT_RAVE_EQUIVALENCE = 1000;
+
+  private static final double EXPLORATION = 1.0;
+  private static final double RAVE_EXPLORATION = 0.2;
+
+  /**
+   * The number of entries of the default transposition table, 4 MB.
+   */
+  public static final int DEFAULT_TRANSPOSITION_CAPACITY = 1 << 18;
+
+  /**
+   * The most visits a move takes over from the transposition table, so results stored long
+   * ago do not outweigh what the current search finds.
+   */
+  private static final int MAX_IMPORTED_VISITS = 100;
+  private static final long WHITE_TO_MOVE = 0x2545F4914F6CDD1DL;
+  private static final long AFTER_PASS = 0x6A09E667F3BCC909L;
+
+  private final long timeBudgetMillis;
+  private final int playoutBudget;
+  private final SearchMode mode;
+  private final Worker[] workers;
+  private final ForkJoinPool leafPool;
+  private final AtomicInteger startedPlayouts = new AtomicInteger();
+  private int raveEquivalence = DEFAULT_RAVE_EQUIVALENCE;
+  private TranspositionTable table = new TranspositionTable(DEFAULT_TRANSPOSITION_CAPACITY);
+  private long deadline;
+  private boolean opponentPassed;
+  private int playouts;
+  private long elapsedNanos;
+  private int collisions;
+  private int transpositionHits;
+  private double winRate;
+
+  /**
+   * @param timeBudgetMillis the time per search in milliseconds, or 0 for no time limit.
+   * @param playoutBudget    the number of playouts per search, or 0 for no limit.
+   * @throws IllegalArgumentException if a budget is negative or both are 0.
+   */
+
+  public MonteCarloTreeSearch(long timeBudgetMillis, int playoutBudget) {
+    this(timeBudgetMillis, playoutBudget, 1, SearchMode.TREE, new Random());
+  }
+
+  public MonteCarloTreeSearch(long timeBudgetMillis, int playoutBudget, Random random) {
+    this(timeBudgetMillis, playoutBudget, 1, SearchMode.TREE, random);
+  }
+
+  public MonteCarloTreeSearch(long timeBudgetMillis, int playoutBudget, int threads,
+      Random random) {
+    this(timeBudgetMillis, playoutBudget, threads, SearchMode.TREE, random);
+  }
+
+  /**
+   * @param threads the number of threads that search. For TREE and ROOT the calling thread
+   *                is one of them; LEAF runs its playouts on a pool of this many threads.
+   * @param mode    how the threads divide the work.
+   * @throws IllegalArgumentException if a budget is negative, both are 0, or threads < 1.
+   */
+
+  public MonteCarloTreeSearch(long timeBudgetMillis, int playoutBudget, int threads,
+      SearchMode mode, Random random) {
+    if (timeBudgetMillis < 0 || playoutBudget < 0
+        || (timeBudgetMillis == 0 && playoutBudget == 0)) {
+      throw new IllegalArgumentException("Invalid search budget: " + timeBudgetMillis
+          + " ms, " + playoutBudget + " playouts");
+    }
+    if (threads < 1) {
+      throw new IllegalArgumentException("Invalid number of threads: " + threads);
+    }
+    this.timeBudgetMillis = timeBudgetMillis;
+    this.playoutBudget = playoutBudget;
+    this.mode = mode;
+    workers = new Worker[threads];
+    for (int i = 0; i < threads; i++) {
+      workers[i] = new Worker(new Random(random.nextLong()));
+    }
+    leafPool = mode == SearchMode.LEAF && threads > 1 ? new ForkJoinPool(threads) : null;
+  }
+
+  /**
+   * Searches the position on position for stone when the opponent did not just pass, see
+   * search(Goban, Stone, boolean).
+   * @return the best move, or PASS.
+   */
+
+  public int search(Goban position, Stone stone) {
+    return search(position, stone, false);
+  }
+
+  /**
+   * Searches the position on position for stone. position itself is not changed, but must
+   * not change either until the search returns.
+   * @param opponentPassed whether the last move of the game was a pass, so that passing
+   *                       back ends the game.
+   * @return the best move, or PASS.
+   */
+
+  public int search(Goban position, Stone stone, boolean opponentPassed) {
+    this.opponentPassed = opponentPassed;
+    long start = System.nanoTime();
+    deadline = start + timeBudgetMillis * 1_000_000L;
+    startedPlayouts.set(0);
+    for (Worker worker : workers) {
+      worker.prepare(position);
+    }
+    SearchNode[] roots = new SearchNode[workers.length];
+    roots[0] = workers[0].expand(stone);
+    for (int i = 1; i < workers.length; i++) {
+      roots[i] = mode == SearchMode.ROOT ? workers[i].expand(stone) : roots[0];
+    }
+
+    int threadCount = mode == SearchMode.LEAF ? 0 : workers.length - 1;
+    Thread[] threads = new Thread[threadCount];
+    for (int i = 0; i < threadCount; i++) {
+      Worker worker = workers[i + 1];
+      SearchNode root = roots[i + 1];
+      threads[i] = new Thread(() -> worker.run(root), "mcts-worker-" + (i + 1));
+      threads[i].start();
+    }
+    workers[0].run(roots[0]);
+    boolean interrupted = false;
+    for (Thread thread : threads) {
+      while (thread.isAlive()) {
+        try {
+          thread.join();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    elapsedNanos = System.nanoTime() - start;
+
+    playouts = 0;
+    collisions = 0;
+    transpositionHits = 0;
+    for (Worker worker : workers) {
+      if (worker.failure != null) {
+        throw worker.failure;
+      }
+      playouts += worker.playouts;
+      collisions += worker.collisions;
+      transpositionHits += worker.transpositionHits;
+    }
+    if (mode != SearchMode.ROOT) {
+      int best = roots[0].mostVisited();
+      winRate = roots[0].winRate(best);
+      return roots[0].moves[best];
+    }
+    return mergeRoots(roots, position.getBoardSize() * position.getBoardSize());
+  }
+
+  /**
+   * Adds up the root statistics of all trees per move; the moves are stored in a different
+   * order in every tree. Passes are counted at index points.
+   * @return the move with the most visits in total.
+   */
+
+  private int mergeRoots(SearchNode[] roots, int points) {
+    int[] visits = new int[points + 1];
+    int[] wins = new int[points + 1];
+    for (SearchNode root : roots) {
+      for (int i = 0; i < root.moves.length; i++) {
+        int move = root.moves[i] == PASS ? points : root.moves[i];
+        visits[move] += root.visits[i];
+        wins[move] += root.wins[i];
+      }
+    }
+    int best = points;
+    for (int move = 0; move < points; move++) {
+      if (visits[move] > visits[best]) {
+        best = move;
+      }
+    }
+    winRate = visits[best] == 0 ? 0.0 : wins[best] / (2.0 * visits[best]);
+    return best == points ? PASS : best;
+  }
+
+  /**
+   * Sets the RAVE equivalence parameter for the next searches, see
+   * DEFAULT_RAVE_EQUIVALENCE. 0 turns RAVE off, which leaves plain UCT.
+   */
+
+  public void setRaveEquivalence(int raveEquivalence) {
+    if (raveEquivalence < 0) {
+      throw new IllegalArgumentException("Invalid RAVE equivalence: " + raveEquivalence);
+    }
+    this.raveEquivalence = raveEquivalence;
+  }
+
+  /**
+   * Sets the transposition table for the next searches. The table may be shared with other
+   * searches of the same game; null searches without one.
+   */
+
+  public void setTranspositionTable(TranspositionTable table) {
+    this.table = table;
+  }
+
+  public TranspositionTable getTranspositionTable() {
+    return table;
+  }
+
+  public int getThreads() {
+    return workers.length;
+  }
+
+  public SearchMode getMode() {
+    return mode;
+  }
+
+  /**
+   * Returns the number of playouts of the last search, over all threads.
+   */
+
+  public int getPlayouts() {
+    return playouts;
+  }
+
+  public long getElapsedMillis() {
+    return elapsedNanos / 1_000_000L;
+  }
+
+  public double getPlayoutsPerSecond() {
+    return elapsedNanos == 0 ? 0.0 : playouts * 1e9 / elapsedNanos;
+  }
+
+  /**
+   * Returns the playout rate of the last search divided by the number of threads. With
+   * perfect scaling it stays the same when threads are added.
+   */
+
+  public double getPlayoutsPerSecondPerThread() {
+    return getPlayoutsPerSecond() / workers.length;
+  }
+
+  /**
+   * Returns the smallest share of the playouts of the last search that a single thread ran,
+   * relative to an equal split: 1.0 means all threads did the same amount of work.
+   */
+
+  public double getLoadBalance() {
+    int fewest = Integer.MAX_VALUE;
+    for (Worker worker : workers) {
+      fewest = Math.min(fewest, worker.playouts);
+    }
+    return playouts == 0 ? 1.0 : fewest * (double) workers.length / playouts;
+  }
+
+  /**
+   * Returns how often two threads expanded the same node at once in the last search, so
+   * that one of the new nodes was thrown away. This only happens in TREE mode.
+   */
+
+  public int getCollisions() {
+    return collisions;
+  }
+
+  /**
+   * Returns how often a move in the last search started out with results from the
+   * transposition table.
+   */
+
+  public int getTranspositionHits() {
+    return transpositionHits;
+  }
+
+  /**
+   * Returns the share of the playouts through the chosen move that were won, a rough
+   * estimate of the winning chance.
+   */
+
+  public double getWinRate() {
+    return winRate;
+  }
+
+  private static int halfPoints(Stone winner, Stone stone) {
+    return winner == stone ? 2 : winner == Stone.EMPTY ? 1 : 0;
+  }
+
+  /**
+   * Returns the transposition table key of the position on goban with toMove to play. A
+   * position right after a pass gets another key, because a second pass ends the game there.
+   */
+
+  private static long key(Goban goban, Stone toMove, boolean afterPass) {
+    long key = toMove == Stone.WHITE ? goban.getHash() ^ WHITE_TO_MOVE : goban.getHash();
+    return afterPass ? key ^ AFTER_PASS : key;
+  }
+
+  /**
+   * Returns the move with the highest upper confidence bound. Without RAVE, moves that were
+   * never tried come first. With RAVE, the win rate of a move is mixed with its RAVE win
+   * rate, with weight sqrt(k / (3 * visits + k)) for the RAVE part, where k is the
+   * equivalence parameter; a move without any RAVE result yet counts as a sure win, so it
+   * is tried soon. Passes have no RAVE statistics: they also count as a sure win until they
+   * are tried once, and use their own win rate after that.
+   */
+
+  private int select(SearchNode node) {
+    double logVisits = Math.log(Math.max(node.totalVisits, 1));
+    int best = 0;
+    double bestValue = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < node.moves.length; i++) {
+      int visits = node.visits[i];
+      double value;
+      if (node.raveVisits == null) {
+        if (visits == 0) {
+          return i;
+        }
+        value = node.winRate(i) + EXPLORATION * Math.sqrt(logVisits / visits);
+      } else {
+        int move = node.moves[i];
+        double raveRate = 0.0;
+        double beta = 0.0;
+        if (move != PASS) {
+          int raveVisits = node.raveVisits[move];
+          raveRate = raveVisits == 0 ? 1.0 : node.raveWins[move] / (2.0 * raveVisits);
+          beta = Math.sqrt(raveEquivalence / (3.0 * visits + raveEquivalence));
+        } else if (visits == 0) {
+          raveRate = 1.0;
+          beta = 1.0;
+        }
+        value = (1 - beta) * node.winRate(i) + beta * raveRate
+            + RAVE_EXPLORATION * Math.sqrt(logVisits / (visits + 1));
+      }
+      if (value > bestValue) {
+        bestValue = value;
+        best = i;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Runs the leaf playouts of a range of workers, split in halves like ReplayEngine splits
+   * its records, so each playout runs on its own pool thread.
+   */
+
+  // Tasks only live for one invoke and are never serialized.
+  @SuppressWarnings("serial")
+  private class LeafTask extends RecursiveAction {
+
+    private final Worker source;
+    private final int from;
+    private final int to;
+    private final int depth;
+    private final boolean previousPass;
+
+    private LeafTask(Worker source, int from, int to, int depth, boolean previousPass) {
+      this.source = source;
+      this.from = from;
+      this.to = to;
+      this.depth = depth;
+      this.previousPass = previousPass;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from == 1) {
+        workers[from].leafPlayout(source, depth, previousPass);
+      } else {
+        int middle = (from + to) >>> 1;
+        invokeAll(new LeafTask(source, from, middle, depth, previousPass),
+            new LeafTask(source, middle, to, depth, previousPass));
+      }
+    }
+  }
+
+  /**
+   * The board, buffers and random generator of one search thread.
+   */
+
+  private class Worker {
+
+    private final Random random;
+    private Goban goban;
+    private AreaScorer scorer;
+    private PassAliveAnalyzer analyzer;
+    private int[] moveBuffer;
+    private SearchNode[] pathNodes = new SearchNode[64];
+    private int[] pathIndices = new int[64];
+    private int[] pathMoves = new int[64];
+    private long[] pathKeys = new long[64];
+    private int[] playoutMoves;
+    private Stone[] playoutStones;
+    private int playoutLength;
+    private Stone[] firstPlayers;
+    private int[] amafMoves;
+    private Stone leafWinner;
+    private int playouts;
+    private int collisions;
+    private int transpositionHits;
+    private RuntimeException failure;
+
+    private Worker(Random random) {
+      this.random = random;
+    }
+
+    /**
+     * Copies position to the private board of this worker. The board is made with the same
+     * superko setting as position, and copyFrom copies the position history along, so the
+     * worker rejects exactly the moves that the game would.
+     */
+
+    private void prepare(Goban position) {
+      int boardSize = position.getBoardSize();
+      if (goban == null || goban.getBoardSize() != boardSize
+          || goban.isPositionalSuperko() != position.isPositionalSuperko()) {
+        goban = new Goban(boardSize, position.isPositionalSuperko());
+        scorer = new AreaScorer(boardSize);
+        analyzer = new PassAliveAnalyzer(boardSize);
+        moveBuffer = new int[boardSize * boardSize];
+        playoutMoves = new int[3 * boardSize * boardSize];
+        playoutStones = new Stone[3 * boardSize * boardSize];
+        firstPlayers = new Stone[boardSize * boardSize];
+        amafMoves = new int[boardSize * boardSize];
+      }
+      goban.copyFrom(position);
+      playouts = 0;
+      collisions = 0;
+      transpositionHits = 0;
+      failure = null;
+    }
+
+    /**
+     * Runs iterations until the budget is spent. In LEAF mode every iteration takes one
+     * playout per worker, except the last, which only takes what is left of the playout
+     * budget so the search never plays more playouts than it was given.
+     */
+
+    private void run(SearchNode root) {
+      int batch = leafPool == null ? 1 : workers.length;
+      try {
+        while (timeBudgetMillis == 0 || System.nanoTime() - deadline < 0) {
+          int results = batch;
+          if (playoutBudget > 0) {
+            int started = startedPlayouts.getAndAdd(batch);
+            if (started >= playoutBudget) {
+              break;
+            }
+            results = Math.min(batch, playoutBudget - started);
+          }
+          iterate(root, results);
+        }
+      } catch (RuntimeException e) {
+        failure = e;
+      }
+    }
+
+    /**
+     * Creates the node for the current position: every sensible move in random order, so
+     * unvisited moves are not always tried from the top left, followed by a pass. Only legal
+     * moves are added, and they stay legal: every thread reaches the node through the same
+     * moves from the same root position, so its board, ko history and superko history are
+     * the same as when the node was created.
+     */
+
+    private SearchNode expand(Stone stone) {
+      int count = goban.getSensibleMoves(stone, moveBuffer);
+      int[] moves = Arrays.copyOf(moveBuffer, count + 1);
+      for (int i = count - 1; i > 0; i--) {
+        int j = random.nextInt(i + 1);
+        int swap = moves[i];
+        moves[i] = moves[j];
+        moves[j] = swap;
+      }
+      moves[count] = PASS;
+      return new SearchNode(stone, moves, raveEquivalence == 0 ? 0 : moveBuffer.length);
+    }
+
+    /**
+     * Walks down the tree to a leaf, evaluates it and counts the results along the path.
+     * A leaf is evaluated with a single playout, or with one playout on each of the first
+     * batch workers in LEAF mode; a visit was already counted on the way down, the other
+     * results add visits.
+     * A finished game counts as many results as a leaf, so the playout budget comes out
+     * exactly. The results are stored in the transposition table too, under the position after each
+     * move on the path.
+     */
+
+    private void iterate(SearchNode root, int batch) {
+      SearchNode node = root;
+      int depth = 0;
+      int played = 0;
+      boolean previousPass = opponentPassed;
+      int results = 0;
+      int blackHalfPoints = 0;
+      TranspositionTable table = MonteCarloTreeSearch.this.table;
+
+      while (results == 0) {
+        int index = select(node);
+        int previousVisits = node.addVisit(index);
+        if (depth == pathNodes.length) {
+          pathNodes = Arrays.copyOf(pathNodes, 2 * depth);
+          pathIndices = Arrays.copyOf(pathIndices, 2 * depth);
+          pathMoves = Arrays.copyOf(pathMoves, 2 * depth);
+          pathKeys = Arrays.copyOf(pathKeys, 2 * depth);
+        }
+        int move = node.moves[index];
+        boolean pass = move == PASS;
+        if (!pass && !goban.play(move, node.stone)) {
+          throw new IllegalStateException("Illegal move " + move + " in the search tree");
+        }
+        pathNodes[depth] = node;
+        pathIndices[depth] = index;
+        pathMoves[depth] = move;
+        if (table != null) {
+          pathKeys[depth] = key(goban, node.stone.other(), pass);
+          if (previousVisits == 0) {
+            importResults(table, node, index, pathKeys[depth]);
+          }
+        }
+        depth += 1;
+        if (!pass) {
+          played += 1;
+        }
+        SearchNode child = node.getChild(index);
+        if (pass && previousPass) {
+          Stone winner = scorer.score(goban, analyzer.analyze(goban)).getWinner();
+          results = batch;
+          playouts += results;
+          playoutLength = 0;
+          blackHalfPoints = results * halfPoints(winner, Stone.BLACK);
+          updateRave(this, depth, winner);
+        } else if (child != null) {
+          node = child;
+        } else if (previousVisits > 0) {
+          SearchNode expanded = expand(node.stone.other());
+          child = node.attachChild(index, expanded);
+          if (child != expanded) {
+            collisions += 1;
+          }
+          node = child;
+        } else if (leafPool != null) {
+          leafPool.invoke(new LeafTask(this, 0, batch, depth, pass));
+          for (int i = 0; i < batch; i++) {
+            Worker worker = workers[i];
+            blackHalfPoints += halfPoints(worker.leafWinner, Stone.BLACK);
+            worker.updateRave(this, depth, worker.leafWinner);
+          }
+          results = batch;
+        } else {
+          Stone winner = playout(node.stone.other(), pass);
+          playouts += 1;
+          results = 1;
+          blackHalfPoints = halfPoints(winner, Stone.BLACK);
+          updateRave(this, depth, winner);
+        }
+        previousPass = pass;
+      }
+
+      for (int i = 0; i < played; i++) {
+        goban.undo();
+      }
+      for (int i = 0; i < depth; i++) {
+        SearchNode pathNode = pathNodes[i];
+        int halfPoints = pathNode.stone == Stone.BLACK
+            ? blackHalfPoints : 2 * results - blackHalfPoints;
+        pathNode.addResult(pathIndices[i], results - 1, halfPoints);
+        if (table != null) {
+          table.add(pathKeys[i], results, halfPoints);
+        }
+      }
+    }
+
+    /**
+     * Adds the results stored under key to move index of node, scaled down to at most
+     * MAX_IMPORTED_VISITS visits.
+     */
+
+    private void importResults(TranspositionTable table, SearchNode node, int index,
+        long key) {
+      long data = table.probe(key);
+      int storedVisits = TranspositionTable.visits(data);
+      if (storedVisits == 0) {
+        return;
+      }
+      int visits = Math.min(storedVisits, MAX_IMPORTED_VISITS);
+      int halfPoints = (int) ((long) TranspositionTable.halfPoints(data) * visits
+          / storedVisits);
+      node.addResult(index, visits, halfPoints);
+      transpositionHits += 1;
+    }
+
+    /**
+     * Adds the all-moves-as-first results of the last simulation to the nodes on the path
+     * of source: the last playout of this worker followed the path, which is the path of
+     * this worker too, except in LEAF mode. Every node gets a result for every position
+     * that its player to move was the first to play on, from that node onwards.
+     */
+
+    private void updateRave(Worker source, int depth, Stone winner) {
+      if (raveEquivalence == 0) {
+        return;
+      }
+      int count = 0;
+      for (int i = playoutLength - 1; i >= 0; i--) {
+        count = markFirstPlayer(playoutMoves[i], playoutStones[i], count);
+      }
+      for (int d = depth - 1; d >= 0; d--) {
+        SearchNode node = source.pathNodes[d];
+        if (source.pathMoves[d] != PASS) {
+          count = markFirstPlayer(source.pathMoves[d], node.stone, count);
+        }
+        int halfPoints = halfPoints(winner, node.stone);
+        for (int i = 0; i < count; i++) {
+          if (firstPlayers[amafMoves[i]] == node.stone) {
+            node.addRaveResult(amafMoves[i], halfPoints);
+          }
+        }
+      }
+      for (int i = 0; i < count; i++) {
+        firstPlayers[amafMoves[i]] = null;
+      }
+    }
+
+    /**
+     * Records that stone played linearPosition before any later move there, adding the
+     * position to amafMoves the first time it is seen.
+     * @return the new number of amafMoves.
+     */
+
+    private int markFirstPlayer(int linearPosition, Stone stone, int count) {
+      if (firstPlayers[linearPosition] == null) {
+        amafMoves[count++] = linearPosition;
+      }
+      firstPlayers[linearPosition] = stone;
+      return count;
+    }
+
+    /**
+     * Runs one playout from the leaf that source reached, for LEAF mode. Other workers
+     * first replay the moves on the path of source on their own board.
+     */
+
+    private void leafPlayout(Worker source, int depth, boolean previousPass) {
+      int played = 0;
+      if (source != this) {
+        for (int i = 0; i < depth; i++) {
+          if (source.pathMoves[i] != PASS) {
+            goban.play(source.pathMoves[i], source.pathNodes[i].stone);
+            played += 1;
+          }
+        }
+      }
+      leafWinner = playout(source.pathNodes[depth - 1].stone.other(), previousPass);
+      playouts += 1;
+      for (int i = 0; i < played; i++) {
+        goban.undo();
+      }
+    }
+
+    /**
+     * Plays random sensible moves for both players, starting with stone, until both pass or
+     * the move limit is reached, then scores the board with the same settled rule as a game
+     * that ends in the tree and takes all moves back. The moves
+     * are kept in playoutMoves for updateRave.
+     * @return the winner, or Stone.EMPTY for a draw.
+     */
+
+    private Stone playout(Stone stone, boolean previousPass) {
+      int points = goban.getBoardSize() * goban.getBoardSize();
+      int passes = previousPass ? 1 : 0;
+      int played = 0;
+      for (int i = 0; i < 3 * points && passes < 2; i++) {
+        int move = randomMove(stone, points);
+        if (move == PASS) {
+          passes += 1;
+        } else {
+          goban.play(move, stone);
+          playoutMoves[played] = move;
+          playoutStones[played] = stone;
+          played += 1;
+          passes = 0;
+        }
+        stone = stone.other();
+      }
+      Stone winner = scorer.score(goban, analyzer.analyze(goban)).getWinner();
+      for (int i = 0; i < played; i++) {
+        goban.undo();
+      }
+      playoutLength = played;
+      return winner;
+    }
+
+    private int randomMove(Stone stone, int points) {
+      int start = random.nextInt(points);
+      for (int i = 0; i < points; i++) {
+        int position = start + i < points ? start + i : start + i - points;
+        if (goban.getStone(position) == Stone.EMPTY && !goban.isTrueEye(position, stone)
+            && goban.isLegal(position, stone)) {
+          return position;
+        }
+      }
+      return PASS;
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package com.nedap.go.ai;
+
+import com.nedap.go.gamelogic.Goban;
+import com.nedap.go.gamelogic.PatternCode;
+import com.nedap.go.gamelogic.Stone;
+import java.util.Random;
+
+/**
+ * Chooses moves at random, weighted by the 3x3 pattern around each move. The weights are
+ * indexed by pattern code from black's point of view; for white the code is colour swapped
+ * first, so one table serves both players. Looking up a weight is a single array read on
+ * a Goban that keeps pattern codes up to date.
+ * The default weights follow a few simple shape rules: never fill an own eye, prefer
+ * cutting points and contact with opponent stones, and avoid empty first-line moves.
+ */
+
+public class PatternPolicy {
+
+  private final int[] weights;
+
+  public PatternPolicy() {
+    this(defaultWeights());
+  }
+
+  /**
+   * @param weights a weight for each of the PatternCode.PATTERNS codes, from black's point
+   *                of view. A weight of 0 means the move is never chosen.
+   */
+
+  public PatternPolicy(int[] weights) {
+    if (weights.length != PatternCode.PATTERNS) {
+      throw new IllegalArgumentException("Expected " + PatternCode.PATTERNS + " weights");
+    }
+    this.weights = weights.clone();
+  }
+
+  public int weight(int patternCode, Stone stone) {
+    return weights[stone == Stone.WHITE ? PatternCode.swapColours(patternCode) : patternCode];
+  }
+
+  /**
+   * Picks one of the first count moves for stone, each with a chance proportional to its
+   * weight.
+   * @return the chosen move, or -1 if all moves have weight 0.
+   * @throws IllegalStateException if goban does not keep pattern codes, see
+   *                               Goban.enablePatternCodes.
+   */
+
+  public int selectMove(Goban goban, Stone stone, int[] moves, int count, Random random) {
+    if (!goban.hasPatternCodes()) {
+      throw new IllegalStateException("Pattern codes are not enabled");
+    }
+    long total = 0;
+    for (int i = 0; i < count; i++) {
+      total += weight(goban.getPatternCode(moves[i]), stone);
+    }
+    if (total == 0) {
+      return -1;
+    }
+    long target = (long) (random.nextDouble() * total);
+    for (int i = 0; i < count; i++) {
+      target -= weight(goban.getPatternCode(moves[i]), stone);
+      if (target < 0) {
+        return moves[i];
+      }
+    }
+    return moves[count - 1];
+  }
+
+  private static int[] defaultWeights() {
+    int[] weights = new int[PatternCode.PATTERNS];
+    for (int code = 0; code < PatternCode.PATTERNS; code++) {
+      weights[code] = defaultWeight(code);
+    }
+    return weights;
+  }
+
+  private static int defaultWeight(int code) {
+    int own = 0;
+    int opponent = 0;
+    int offBoard = 0;
+    for (int direction = 0; direction < PatternCode.DIRECTIONS; direction += 2) {
+      int field = PatternCode.get(code, direction);
+      if (field == PatternCode.BLACK) {
+        own += 1;
+      } else if (field == PatternCode.WHITE) {
+        opponent += 1;
+      } else if (field == PatternCode.OFF_BOARD) {
+        offBoard += 1;
+      }
+    }
+    if (own + offBoard == 4) {
+      return 0;
+    }
+    for (int direction = 1; direction < PatternCode.DIRECTIONS; direction += 2) {
+      if (PatternCode.get(code, direction - 1) == PatternCode.WHITE
+          && PatternCode.get(code, (direction + 1) & 7) == PatternCode.WHITE
+          && PatternCode.get(code, direction) != PatternCode.WHITE) {
+        return 20;
+      }
+    }
+    if (opponent > 0) {
+      return 10;
+    }
+    if (own > 0) {
+      return 5;
+    }
+    boolean nearStones = false;
+    for (int direction = 1; direction < PatternCode.DIRECTIONS; direction += 2) {
+      int field = PatternCode.get(code, direction);
+      nearStones |= field == PatternCode.BLACK || field == PatternCode.WHITE;
+    }
+    if (nearStones) {
+      return 4;
+    }
+    return offBoard > 0 ? 1 : 3;
+  }
+}
@@ -0,0 +1,28 @@
+package com.nedap.go.ai;
+
+/**
+ * The ways MonteCarloTreeSearch can spread a search over several threads.
+ */
+
+public enum SearchMode {
+
+  /**
+   * All threads search one shared tree, kept apart by virtual losses.
+   */
+  TREE,
+
+  /**
+   * Every thread searches its own tree from the same position; the visits and wins of the
+   * root moves are added up at the end. The trees are independent, but the threads still
+   * share the transposition table, so results one thread stores seed the nodes of the
+   * others, and the playout budget. Set a null transposition table to compare the modes
+   * without it.
+   */
+  ROOT,
+
+  /**
+   * One thread walks the tree, and every leaf it reaches is evaluated with one playout per
+   * thread at the same time on a fork-join pool.
+   */
+  LEAF
+}
@@ -0,0 +1,138 @@
+package com.nedap.go.ai;
+
+import com.nedap.go.gamelogic.Stone;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A position in the search tree of MonteCarloTreeSearch. The statistics of every move are
+ * kept in primitive arrays on the node itself, indexed like moves, so selecting a child
+ * reads a few adjacent ints instead of following a pointer per child. Child nodes are only
+ * created once their move has been tried before. With RAVE enabled, a node also keeps
+ * all-moves-as-first statistics, indexed by linearPosition rather than by move: how often
+ * stone played each position anywhere later in a simulation through this node, and won.
+ * Nodes are shared by all search threads without locks. Counts are changed with atomic
+ * VarHandle updates and read with plain reads, which may be slightly behind. A visit is
+ * counted as soon as a thread selects the move, before its result is known: until the
+ * result comes in, it lowers the win rate like a lost playout (a virtual loss), so the other
+ * threads spread over other moves. Children are published with compareAndSet, which has
+ * volatile semantics, and always read with acquire reads, so a thread that finds a child also
+ * sees it fully built. A thread that loses the race to attach a child uses the winner's node.
+ */
+
+final class SearchNode {
+
+  private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+  private static final VarHandle NODES =
+      MethodHandles.arrayElementVarHandle(SearchNode[].class);
+  private static final VarHandle TOTAL_VISITS;
+
+  static {
+    try {
+      TOTAL_VISITS = MethodHandles.lookup()
+          .findVarHandle(SearchNode.class, "totalVisits", int.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  final Stone stone;
+  final int[] moves;
+  final int[] visits;
+  final int[] wins;
+  final SearchNode[] children;
+  final int[] raveVisits;
+  final int[] raveWins;
+  volatile int totalVisits;
+
+  /**
+   * @param stone  the player to move in this position.
+   * @param moves  the moves that may be tried here; the node keeps the array.
+   * @param points the number of positions on the board for the RAVE statistics, or 0 to
+   *               keep none.
+   */
+
+  SearchNode(Stone stone, int[] moves, int points) {
+    this.stone = stone;
+    this.moves = moves;
+    visits = new int[moves.length];
+    wins = new int[moves.length];
+    children = new SearchNode[moves.length];
+    raveVisits = points == 0 ? null : new int[points];
+    raveWins = points == 0 ? null : new int[points];
+  }
+
+  /**
+   * Counts a visit of move index, before its result is known.
+   * @return the number of visits the move had before.
+   */
+
+  int addVisit(int index) {
+    TOTAL_VISITS.getAndAdd(this, 1);
+    return (int) INTS.getAndAdd(visits, index, 1);
+  }
+
+  /**
+   * Adds the results of move index: 2 half points for every win, 1 for every draw. The
+   * first result was already counted as a visit by addVisit; extraVisits counts the rest.
+   */
+
+  void addResult(int index, int extraVisits, int halfPoints) {
+    if (extraVisits != 0) {
+      TOTAL_VISITS.getAndAdd(this, extraVisits);
+      INTS.getAndAdd(visits, index, extraVisits);
+    }
+    if (halfPoints != 0) {
+      INTS.getAndAdd(wins, index, halfPoints);
+    }
+  }
+
+  /**
+   * Adds one all-moves-as-first result for linearPosition, in half points like addResult.
+   */
+
+  void addRaveResult(int linearPosition, int halfPoints) {
+    INTS.getAndAdd(raveVisits, linearPosition, 1);
+    if (halfPoints != 0) {
+      INTS.getAndAdd(raveWins, linearPosition, halfPoints);
+    }
+  }
+
+  SearchNode getChild(int index) {
+    return (SearchNode) NODES.getAcquire(children, index);
+  }
+
+  /**
+   * Attaches child for move index unless another thread attached one first.
+   * @return the child that is attached now.
+   */
+
+  SearchNode attachChild(int index, SearchNode child) {
+    if (NODES.compareAndSet(children, index, null, child)) {
+      return child;
+    }
+    return getChild(index);
+  }
+
+  /**
+   * Returns the win rate of move index for stone, counting a draw as half a win.
+   */
+
+  double winRate(int index) {
+    return visits[index] == 0 ? 0.0 : wins[index] / (2.0 * visits[index]);
+  }
+
+  /**
+   * Returns the index of the move that was tried most often.
+   */
+
+  int mostVisited() {
+    int best = 0;
+    for (int i = 1; i < moves.length; i++) {
+      if (visits[i] > visits[best]) {
+        best = i;
+      }
+    }
+    return best;
+  }
+}
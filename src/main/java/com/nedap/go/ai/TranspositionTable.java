@@ -0,0 +1,140 @@
+package com.nedap.go.ai;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * A fixed-size table of search results per position, keyed by Zobrist hash, that all
+ * threads of a MonteCarloTreeSearch share. Every entry is two longs in one long[]: the data
+ * (visits in the high half, half points in the low half) and the key XOR the data. Each long
+ * is accessed through a VarHandle, so it is never torn: a write stores the data and then
+ * releases the check word, and a read acquires the check word before the data. A read only
+ * counts if the key XOR the data it read matches, so an entry that another thread is writing
+ * at the same moment reads as missing instead of as a mix of two entries, and no locks are
+ * needed. Adds are not atomic; two threads adding to one entry at once may lose one of the
+ * results, which a statistical search can afford. clear must not run during a search.
+ * The entries are grouped in buckets of two. The first keeps the entry with the most visits,
+ * the one that stands for the most search, and is only replaced by an entry with at least
+ * as many; the second is always replaced. The table never grows, so its memory use is fixed
+ * when it is created.
+ */
+
+public class TranspositionTable {
+
+  public static final int MAX_VISITS = 1 << 30;
+
+  private static final int LONGS_PER_ENTRY = 2;
+  private static final int LONGS_PER_BUCKET = 2 * LONGS_PER_ENTRY;
+  private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+  private final long[] entries;
+  private final int bucketMask;
+
+  /**
+   * @param capacity the number of entries, rounded up to a power of two.
+   * @throws IllegalArgumentException if capacity is not positive or above 2^28.
+   */
+
+  public TranspositionTable(int capacity) {
+    if (capacity < 1 || capacity > 1 << 28) {
+      throw new IllegalArgumentException("Invalid transposition table capacity: " + capacity);
+    }
+    int buckets = 1;
+    while (2 * buckets < capacity) {
+      buckets <<= 1;
+    }
+    entries = new long[buckets * LONGS_PER_BUCKET];
+    bucketMask = buckets - 1;
+  }
+
+  public int getCapacity() {
+    return entries.length / LONGS_PER_ENTRY;
+  }
+
+  public long getMemoryBytes() {
+    return 8L * entries.length;
+  }
+
+  /**
+   * Looks up the results stored for key.
+   * @return the packed data, see visits and halfPoints, or 0 if key is not in the table.
+   */
+
+  public long probe(long key) {
+    int bucket = bucket(key);
+    for (int i = bucket; i < bucket + LONGS_PER_BUCKET; i += LONGS_PER_ENTRY) {
+      long check = (long) LONGS.getAcquire(entries, i);
+      long data = (long) LONGS.getOpaque(entries, i + 1);
+      if ((check ^ data) == key) {
+        return data;
+      }
+    }
+    return 0L;
+  }
+
+  public static int visits(long data) {
+    return (int) (data >>> 32);
+  }
+
+  public static int halfPoints(long data) {
+    return (int) data;
+  }
+
+  /**
+   * Adds visits results worth halfPoints (2 for every win, 1 for every draw) to key. The
+   * counts stop growing at MAX_VISITS visits.
+   */
+
+  public void add(long key, int visits, int halfPoints) {
+    int bucket = bucket(key);
+    int deep = bucket;
+    int recent = bucket + LONGS_PER_ENTRY;
+    long deepCheck = (long) LONGS.getAcquire(entries, deep);
+    long deepData = (long) LONGS.getOpaque(entries, deep + 1);
+    long recentCheck = (long) LONGS.getAcquire(entries, recent);
+    long recentData = (long) LONGS.getOpaque(entries, recent + 1);
+    if ((deepCheck ^ deepData) == key) {
+      write(deep, key, merge(deepData, visits, halfPoints));
+    } else if ((recentCheck ^ recentData) == key) {
+      long data = merge(recentData, visits, halfPoints);
+      if (visits(data) >= visits(deepData)) {
+        write(recent, deepCheck ^ deepData, deepData);
+        write(deep, key, data);
+      } else {
+        write(recent, key, data);
+      }
+    } else if (visits >= visits(deepData)) {
+      write(recent, deepCheck ^ deepData, deepData);
+      write(deep, key, pack(visits, halfPoints));
+    } else {
+      write(recent, key, pack(visits, halfPoints));
+    }
+  }
+
+  public void clear() {
+    Arrays.fill(entries, 0L);
+  }
+
+  private void write(int entry, long key, long data) {
+    LONGS.setOpaque(entries, entry + 1, data);
+    LONGS.setRelease(entries, entry, key ^ data);
+  }
+
+  private static long merge(long data, int visits, int halfPoints) {
+    long totalVisits = (long) visits(data) + visits;
+    if (totalVisits > MAX_VISITS) {
+      return data;
+    }
+    return pack((int) totalVisits, halfPoints(data) + halfPoints);
+  }
+
+  private static long pack(int visits, int halfPoints) {
+    return (long) visits << 32 | (halfPoints & 0xFFFFFFFFL);
+  }
+
+  private int bucket(long key) {
+    long mixed = key * 0x9E3779B97F4A7C15L;
+    return ((int) (mixed ^ (mixed >>> 32)) & bucketMask) * LONGS_PER_BUCKET;
+  }
+}
@@ -24,6 +24,7 @@ public class GoClient {
   private int boardSize;
   private boolean gameStarted = false;
   private boolean currentTurn;
+  private boolean lastMovePass;
   private boolean queued;
   private Goban goban;
   private boolean gui = false;
@@ -54,6 +55,15 @@ public class GoClient {
     return currentTurn;
   }
 
+  /**
+   * Returns whether the last move of the current game was a pass, so that passing back
+   * ends the game.
+   */
+
+  public boolean getLastMovePass() {
+    return lastMovePass;
+  }
+
   public boolean getGameStarted() {
     return gameStarted;
   }
@@ -111,11 +121,17 @@ public class GoClient {
 
         case GoProtocol.MOVE:
           currentTurn = false;
+          lastMovePass = false;
           int position = Integer.parseInt(parsedInput[1]);
           Stone move = getStoneByColor(parsedInput[2]);
           handleMove(position, move);
           break;
 
+        case GoProtocol.PASS:
+          currentTurn = false;
+          lastMovePass = true;
+          break;
+
         case GoProtocol.MAKE_MOVE:
           handleTurn();
           break;
@@ -123,7 +139,6 @@ public class GoClient {
         case GoProtocol.GAME_OVER:
           currentTurn = false;
           gameStarted = false;
-          goban.scoreGoban();
           inputLine += "\n" + goban.getScores();
           clearGUI();
           goban = null;
@@ -144,6 +159,7 @@ public class GoClient {
       sendMessage(GoProtocol.ERROR + GoProtocol.SEPARATOR + "User not in game!");
     }
     goban = new Goban(boardSize);
+    lastMovePass = false;
     gameStarted = true;
     queued = false;
     if (gui && listener == null) {
@@ -1,8 +1,10 @@
 package com.nedap.go.client;
 
 import com.nedap.go.ai.GoAIClient;
+import com.nedap.go.ai.SearchMode;
 import com.nedap.go.gamelogic.IllegalMoveException;
 import com.nedap.go.gamelogic.NotYourTurnException;
+import com.nedap.go.server.GoProtocol;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.util.Scanner;
@@ -38,11 +40,34 @@ public class GoClientTUI {
               System.out.println("Valid port numbers range between 0 and 65535.");
               continue;
             }
-            System.out.println("Human or AI player?");
+            System.out.println("Human or AI player? Use AI~<milliseconds>~<threads>~<mode> to"
+                + " set the time the AI may think per move, the number of threads it uses and"
+                + " how they search: TREE, ROOT or LEAF.");
             if (input.hasNextLine()) {
               command = input.nextLine();
-              if (command.equalsIgnoreCase("AI")) {
-                client = new GoAIClient(hostAddress, port, this);
+              String[] parsedCommand = command.split(GoProtocol.SEPARATOR);
+              if (parsedCommand[0].equalsIgnoreCase("AI")) {
+                long moveTime = GoAIClient.DEFAULT_MOVE_TIME_MILLIS;
+                int threads = Runtime.getRuntime().availableProcessors();
+                SearchMode mode = SearchMode.TREE;
+                try {
+                  if (parsedCommand.length > 1) {
+                    moveTime = Long.parseLong(parsedCommand[1].trim());
+                  }
+                  if (parsedCommand.length > 2) {
+                    threads = Integer.parseInt(parsedCommand[2].trim());
+                  }
+                  if (parsedCommand.length > 3) {
+                    mode = SearchMode.valueOf(parsedCommand[3].trim().toUpperCase());
+                  }
+                } catch (IllegalArgumentException e) {
+                  moveTime = -1;
+                }
+                if (moveTime <= 0 || threads <= 0) {
+                  System.out.println("Invalid thinking time, number of threads or search mode.");
+                  continue;
+                }
+                client = new GoAIClient(hostAddress, port, this, moveTime, threads, mode);
               } else {
                 client = new GoClient(hostAddress, port, this);
 
@@ -112,6 +137,7 @@ public class GoClientTUI {
                 
         LOGIN~<username> .............. Login to the server with your username.
         QUEUE ......................... Join the queue to wait for a new game to start.\s
+        QUEUE~<size> .................. Join the queue for a game on a size x size board (2-25).\s
         Use the command again to exit the queue.
         MOVE~<number> ................. Make a move at this specific coordinate.
         MOVE~<col, row> ............... Make a move at position col, row.
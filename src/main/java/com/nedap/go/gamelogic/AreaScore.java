@@ -0,0 +1,66 @@
+package com.nedap.go.gamelogic;
+
+/**
+ * The result of area scoring a Goban: the number of points owned by black and white
+ * (stones plus surrounded empty positions), the number of neutral points, and the owner of
+ * every single position. Stone.EMPTY as owner means the position is neutral.
+ */
+
+public class AreaScore {
+
+  private final int blackArea;
+  private final int whiteArea;
+  private final int neutralPoints;
+  private final Stone[] ownership;
+
+  public AreaScore(int blackArea, int whiteArea, int neutralPoints, Stone[] ownership) {
+    this.blackArea = blackArea;
+    this.whiteArea = whiteArea;
+    this.neutralPoints = neutralPoints;
+    this.ownership = ownership;
+  }
+
+  public int getBlackArea() {
+    return blackArea;
+  }
+
+  public int getWhiteArea() {
+    return whiteArea;
+  }
+
+  public int getNeutralPoints() {
+    return neutralPoints;
+  }
+
+  public int getArea(Stone stone) {
+    if (stone == Stone.BLACK) {
+      return blackArea;
+    } else if (stone == Stone.WHITE) {
+      return whiteArea;
+    } else {
+      return neutralPoints;
+    }
+  }
+
+  public Stone getOwner(int linearPosition) {
+    return ownership[linearPosition];
+  }
+
+  /**
+   * Returns the colour with the larger area, or Stone.EMPTY for a draw.
+   */
+
+  public Stone getWinner() {
+    if (blackArea > whiteArea) {
+      return Stone.BLACK;
+    } else if (whiteArea > blackArea) {
+      return Stone.WHITE;
+    } else {
+      return Stone.EMPTY;
+    }
+  }
+
+  public String toString() {
+    return "BLACK: " + blackArea + "\nWHITE: " + whiteArea;
+  }
+}
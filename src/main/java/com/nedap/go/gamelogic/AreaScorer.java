@@ -0,0 +1,119 @@
+package com.nedap.go.gamelogic;
+
+/**
+ * Area scoring engine that only reads the board. Every stone counts for its colour, and
+ * every empty region counts for a colour if all stones around it have that colour. Regions
+ * touching both colours, or none at all, are neutral. The board is scanned once, and each
+ * empty region is flood filled once with a reusable work queue. Region membership is marked
+ * with a generation stamp, so nothing has to be cleared between runs.
+ * An AreaScorer is not thread-safe; use one per thread.
+ */
+
+public class AreaScorer {
+
+  private final int boardSize;
+  private final int[] queue;
+  private final int[] visited;
+  private int generation;
+
+  public AreaScorer(int boardSize) {
+    this.boardSize = boardSize;
+    queue = new int[boardSize * boardSize];
+    visited = new int[boardSize * boardSize];
+  }
+
+  public int getBoardSize() {
+    return boardSize;
+  }
+
+  public AreaScore score(Goban goban) {
+    return score(goban, null);
+  }
+
+  /**
+   * Scores goban with the settled positions of a PassAliveAnalyzer. A settled position counts
+   * as a stone of its settled colour, so dead stones in pass-alive territory are scored for
+   * the owner of that territory and the game does not have to be played out to capture them.
+   * With settled null, every position counts as it is on the board.
+   * @throws IllegalArgumentException if goban or settled does not match the board size of
+   *                                  this AreaScorer.
+   */
+
+  public AreaScore score(Goban goban, Stone[] settled) {
+    if (goban.getBoardSize() != boardSize) {
+      throw new IllegalArgumentException("Board sizes differ: " + goban.getBoardSize() + " and "
+          + boardSize);
+    }
+    if (settled != null && settled.length != boardSize * boardSize) {
+      throw new IllegalArgumentException("Settled positions differ: " + settled.length + " and "
+          + boardSize * boardSize);
+    }
+    BoardGeometry geometry = goban.getGeometry();
+    int points = boardSize * boardSize;
+    Stone[] ownership = new Stone[points];
+    int blackArea = 0;
+    int whiteArea = 0;
+    int neutralPoints = 0;
+    generation += 1;
+
+    for (int position = 0; position < points; position++) {
+      Stone stone = colourOf(goban, settled, position);
+      if (stone != Stone.EMPTY) {
+        ownership[position] = stone;
+        if (stone == Stone.BLACK) {
+          blackArea += 1;
+        } else {
+          whiteArea += 1;
+        }
+        continue;
+      }
+      if (visited[position] == generation) {
+        continue;
+      }
+
+      boolean bordersBlack = false;
+      boolean bordersWhite = false;
+      int head = 0;
+      int tail = 0;
+      queue[tail++] = position;
+      visited[position] = generation;
+      while (head < tail) {
+        int current = queue[head++];
+        for (int i = 0; i < geometry.getNeighbourCount(current); i++) {
+          int neighbour = geometry.getNeighbour(current, i);
+          Stone neighbourStone = colourOf(goban, settled, neighbour);
+          if (neighbourStone == Stone.BLACK) {
+            bordersBlack = true;
+          } else if (neighbourStone == Stone.WHITE) {
+            bordersWhite = true;
+          } else if (visited[neighbour] != generation) {
+            visited[neighbour] = generation;
+            queue[tail++] = neighbour;
+          }
+        }
+      }
+
+      Stone owner = Stone.EMPTY;
+      if (bordersBlack && !bordersWhite) {
+        owner = Stone.BLACK;
+        blackArea += tail;
+      } else if (bordersWhite && !bordersBlack) {
+        owner = Stone.WHITE;
+        whiteArea += tail;
+      } else {
+        neutralPoints += tail;
+      }
+      for (int i = 0; i < tail; i++) {
+        ownership[queue[i]] = owner;
+      }
+    }
+    return new AreaScore(blackArea, whiteArea, neutralPoints, ownership);
+  }
+
+  private static Stone colourOf(Goban goban, Stone[] settled, int linearPosition) {
+    if (settled != null && settled[linearPosition] != Stone.EMPTY) {
+      return settled[linearPosition];
+    }
+    return goban.getStone(linearPosition);
+  }
+}
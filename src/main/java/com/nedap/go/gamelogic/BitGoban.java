@@ -0,0 +1,327 @@
+package com.nedap.go.gamelogic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Alternative board engine that keeps the black and white stones in packed long[] bitsets,
+ * one bit per linearPosition. Chains, liberties and captures are computed with bitwise flood
+ * fills over whole words instead of visiting single positions, and all work buffers are
+ * allocated once per board. The rules are the same as in Goban: captures are resolved before
+ * suicide, and a move may not recreate one of the last two positions. play saves a copy
+ * of the stones before the move, so undo is a plain copy back.
+ */
+
+public class BitGoban implements Board {
+
+  private final int boardSize;
+  private final int words;
+  private final long[] black;
+  private final long[] white;
+  private final long[] onBoard;
+  private final long[] notFirstColumn;
+  private final long[] notLastColumn;
+  private final long[][] previousPositions;
+  private int previousCount;
+  private int previousIndex;
+
+  private final long[] trialBlack;
+  private final long[] trialWhite;
+  private final long[] chain;
+  private final long[] frontier;
+  private final long[] emptyPoints;
+  private final long[] freePoints;
+  private long[] undoStack;
+  private int[] undoCounts;
+  private int undoDepth;
+
+  public BitGoban(int boardSize) {
+    Goban.checkBoardSize(boardSize);
+    this.boardSize = boardSize;
+    words = (boardSize * boardSize + 63) >>> 6;
+    black = new long[words];
+    white = new long[words];
+    onBoard = new long[words];
+    notFirstColumn = new long[words];
+    notLastColumn = new long[words];
+    previousPositions = new long[2][2 * words];
+    trialBlack = new long[words];
+    trialWhite = new long[words];
+    chain = new long[words];
+    frontier = new long[words];
+    emptyPoints = new long[words];
+    freePoints = new long[words];
+    undoStack = new long[16 * 4 * words];
+    undoCounts = new int[16];
+
+    for (int position = 0; position < boardSize * boardSize; position++) {
+      setBit(onBoard, position);
+      if (position % boardSize != 0) {
+        setBit(notFirstColumn, position);
+      }
+      if (position % boardSize != boardSize - 1) {
+        setBit(notLastColumn, position);
+      }
+    }
+  }
+
+  @Override
+  public int getBoardSize() {
+    return boardSize;
+  }
+
+  public boolean isValidMove(int linearPosition) {
+    return linearPosition >= 0 && linearPosition < boardSize * boardSize
+        && !getBit(black, linearPosition) && !getBit(white, linearPosition);
+  }
+
+  public List<Integer> getValidMoves(Stone stone) {
+    int[] moves = new int[boardSize * boardSize];
+    int count = getLegalMoves(stone, moves);
+    List<Integer> validMoves = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      validMoves.add(moves[i]);
+    }
+    return validMoves;
+  }
+
+  /**
+   * Writes all legal moves for stone into moves. Every empty position that has an empty
+   * neighbour is legal without simulation: it can neither be suicide nor recreate an earlier
+   * position. Only the remaining empty positions are tried on the scratch bitsets.
+   * @return the number of legal moves written.
+   */
+
+  @Override
+  public int getLegalMoves(Stone stone, int[] moves) {
+    int count = 0;
+    for (int i = 0; i < words; i++) {
+      emptyPoints[i] = onBoard[i] & ~black[i] & ~white[i];
+    }
+    neighbourMask(emptyPoints, freePoints);
+
+    for (int i = 0; i < words; i++) {
+      long empty = emptyPoints[i];
+      long free = freePoints[i];
+      while (empty != 0) {
+        int position = (i << 6) + Long.numberOfTrailingZeros(empty);
+        empty &= empty - 1;
+        if ((free & (1L << position)) != 0 || attemptMove(position, stone)) {
+          moves[count++] = position;
+        }
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Plays stone at linearPosition on the scratch bitsets. Neighbouring opponent chains
+   * without liberties are removed first, then the chain of the placed stone if it has no
+   * liberties left. The resulting position is compared to the last two positions.
+   * @return true if the move is legal; the result is left in trialBlack and trialWhite.
+   */
+
+  public boolean attemptMove(int linearPosition, Stone stone) {
+    if (stone == Stone.EMPTY || !isValidMove(linearPosition)) {
+      return false;
+    }
+    System.arraycopy(black, 0, trialBlack, 0, words);
+    System.arraycopy(white, 0, trialWhite, 0, words);
+    long[] own = stone == Stone.BLACK ? trialBlack : trialWhite;
+    long[] opponent = stone == Stone.BLACK ? trialWhite : trialBlack;
+    setBit(own, linearPosition);
+
+    int row = linearPosition / boardSize;
+    int col = linearPosition - row * boardSize;
+    if (row > 0) {
+      captureChain(linearPosition - boardSize, opponent);
+    }
+    if (row < boardSize - 1) {
+      captureChain(linearPosition + boardSize, opponent);
+    }
+    if (col > 0) {
+      captureChain(linearPosition - 1, opponent);
+    }
+    if (col < boardSize - 1) {
+      captureChain(linearPosition + 1, opponent);
+    }
+    captureChain(linearPosition, own);
+
+    for (int i = 0; i < previousCount; i++) {
+      if (samePosition(previousPositions[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public void makeMove(int linearPosition, Stone stone) throws IllegalMoveException {
+    if (!play(linearPosition, stone)) {
+      throw new IllegalMoveException("Invalid move! Try again.");
+    }
+  }
+
+  /**
+   * Plays stone at linearPosition in place. The stones before the move and the position it
+   * pushes out of the ko history are saved on the undo stack.
+   * @return true if the move was legal and has been played.
+   */
+
+  @Override
+  public boolean play(int linearPosition, Stone stone) {
+    if (!attemptMove(linearPosition, stone)) {
+      return false;
+    }
+    int frameSize = 4 * words;
+    if ((undoDepth + 1) * frameSize > undoStack.length) {
+      undoStack = Arrays.copyOf(undoStack, 2 * undoStack.length);
+      undoCounts = Arrays.copyOf(undoCounts, 2 * undoCounts.length);
+    }
+    int frame = undoDepth * frameSize;
+    System.arraycopy(black, 0, undoStack, frame, words);
+    System.arraycopy(white, 0, undoStack, frame + words, words);
+    System.arraycopy(previousPositions[previousIndex], 0, undoStack, frame + 2 * words,
+        2 * words);
+    undoCounts[undoDepth++] = previousCount;
+
+    System.arraycopy(trialBlack, 0, black, 0, words);
+    System.arraycopy(trialWhite, 0, white, 0, words);
+    long[] position = previousPositions[previousIndex];
+    System.arraycopy(black, 0, position, 0, words);
+    System.arraycopy(white, 0, position, words, words);
+    previousIndex = (previousIndex + 1) % previousPositions.length;
+    previousCount = Math.min(previousCount + 1, previousPositions.length);
+    return true;
+  }
+
+  @Override
+  public void undo() {
+    if (undoDepth == 0) {
+      throw new IllegalStateException("No move to undo");
+    }
+    int frame = --undoDepth * 4 * words;
+    previousIndex = (previousIndex + previousPositions.length - 1) % previousPositions.length;
+    previousCount = undoCounts[undoDepth];
+    System.arraycopy(undoStack, frame, black, 0, words);
+    System.arraycopy(undoStack, frame + words, white, 0, words);
+    System.arraycopy(undoStack, frame + 2 * words, previousPositions[previousIndex], 0,
+        2 * words);
+  }
+
+  public int getMoveCount() {
+    return undoDepth;
+  }
+
+  @Override
+  public Stone getStone(int linearPosition) {
+    if (getBit(black, linearPosition)) {
+      return Stone.BLACK;
+    } else if (getBit(white, linearPosition)) {
+      return Stone.WHITE;
+    } else {
+      return Stone.EMPTY;
+    }
+  }
+
+  public Stone getStone(int row, int col) {
+    return getStone(row * boardSize + col);
+  }
+
+  /**
+   * Flood fills the chain of stones starting from linearPosition into the chain bitset and
+   * removes it from stones if none of the positions around it are empty. Only the words
+   * between first and last hold chain bits; since a row is shorter than a word, one step of
+   * the fill can reach at most one word further on each side. The fill therefore touches
+   * only the words around the chain itself, so a small chain costs the same on 9x9 as on
+   * 25x25. The chain bitset is all zero again when this returns.
+   */
+
+  private void captureChain(int linearPosition, long[] stones) {
+    if (!getBit(stones, linearPosition)) {
+      return;
+    }
+    int first = linearPosition >>> 6;
+    int last = first;
+    setBit(chain, linearPosition);
+    boolean growing = true;
+    while (growing) {
+      int from = Math.max(first - 1, 0);
+      int to = Math.min(last + 1, words - 1);
+      neighbourMask(chain, frontier, from, to);
+      growing = false;
+      for (int i = from; i <= to; i++) {
+        long grown = chain[i] | (frontier[i] & stones[i]);
+        if (grown != chain[i]) {
+          chain[i] = grown;
+          growing = true;
+          first = Math.min(first, i);
+          last = Math.max(last, i);
+        }
+      }
+    }
+
+    int from = Math.max(first - 1, 0);
+    int to = Math.min(last + 1, words - 1);
+    neighbourMask(chain, frontier, from, to);
+    boolean hasLiberty = false;
+    for (int i = from; i <= to && !hasLiberty; i++) {
+      hasLiberty = (frontier[i] & ~trialBlack[i] & ~trialWhite[i]) != 0;
+    }
+    for (int i = first; i <= last; i++) {
+      if (!hasLiberty) {
+        stones[i] &= ~chain[i];
+      }
+      chain[i] = 0L;
+    }
+  }
+
+  private void neighbourMask(long[] source, long[] target) {
+    neighbourMask(source, target, 0, words - 1);
+  }
+
+  /**
+   * Sets every bit in target words from up to and including to whose position is a direct
+   * neighbour of a bit in source. Horizontal shifts are masked so that stones do not wrap
+   * around to the next row.
+   */
+
+  private void neighbourMask(long[] source, long[] target, int from, int to) {
+    int verticalCarry = 64 - boardSize;
+    for (int i = from; i <= to; i++) {
+      long current = source[i];
+      long previous = i > 0 ? source[i - 1] : 0L;
+      long next = i < words - 1 ? source[i + 1] : 0L;
+
+      long right = (current << 1) | (previous >>> 63);
+      long left = (current >>> 1) | (next << 63);
+      long down = (current << boardSize) | (previous >>> verticalCarry);
+      long up = (current >>> boardSize) | (next << verticalCarry);
+
+      target[i] = ((right & notFirstColumn[i]) | (left & notLastColumn[i]) | down | up)
+          & onBoard[i];
+    }
+  }
+
+  private boolean samePosition(long[] position) {
+    for (int i = 0; i < words; i++) {
+      if (position[i] != trialBlack[i] || position[words + i] != trialWhite[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean getBit(long[] bits, int position) {
+    return (bits[position >>> 6] & (1L << position)) != 0;
+  }
+
+  private static void setBit(long[] bits, int position) {
+    bits[position >>> 6] |= 1L << position;
+  }
+
+  @Override
+  public String toString() {
+    return Goban.render(boardSize, this::getStone);
+  }
+}
@@ -0,0 +1,32 @@
+package com.nedap.go.gamelogic;
+
+/**
+ * The operations a board engine needs to walk the game tree: generating the legal moves,
+ * playing one in place and taking it back again. Goban and BitGoban both implement it, so
+ * tree searches like Perft can run on either engine and compare them directly.
+ */
+
+public interface Board {
+
+  int getBoardSize();
+
+  Stone getStone(int linearPosition);
+
+  /**
+   * Writes all legal moves for stone into moves, which must hold at least
+   * boardSize * boardSize positions.
+   * @return the number of legal moves written.
+   */
+  int getLegalMoves(Stone stone, int[] moves);
+
+  /**
+   * Plays stone on linearPosition in place.
+   * @return true if the move was legal and has been played.
+   */
+  boolean play(int linearPosition, Stone stone);
+
+  /**
+   * Takes back the last move made with play.
+   */
+  void undo();
+}
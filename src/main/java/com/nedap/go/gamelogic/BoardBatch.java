@@ -0,0 +1,414 @@
+package com.nedap.go.gamelogic;
+
+import java.util.Arrays;
+
+/**
+ * Many boards of the same size in one set of primitive arrays, for self-play generation and
+ * bulk rescoring. Every board takes one byte per linearPosition (the Stone ordinal) in a
+ * single cells array, so board b occupies points consecutive bytes starting at b * points,
+ * and its Zobrist hash and ko history sit in long arrays indexed by b. There are no chain
+ * objects; captures and liberties are found with flood fills over the cells.
+ * The rules are the same as in Goban: captures are resolved before suicide, and a move may
+ * not recreate one of the last two positions of its board.
+ * Every call gets its own work buffers, so different threads may work on different boards
+ * at the same time, for example on disjoint ranges of board indices, and nothing is left
+ * behind on the threads afterwards. A single board must not be used by two threads at once.
+ * The batched methods take the same rules per board and only save the per-call overhead,
+ * the work buffers included, which the single-board methods allocate on every call.
+ */
+
+public class BoardBatch {
+
+  private static final Stone[] STONES = Stone.values();
+
+  private final int boardSize;
+  private final int points;
+  private final int boards;
+  private final int maskWords;
+  private final BoardGeometry geometry;
+  private final ZobristTable zobrist;
+  private final byte[] cells;
+  private final long[] hashes;
+  private final long[] previousHashes;
+  private final byte[] previousCounts;
+  private final byte[] previousIndices;
+
+  public BoardBatch(int boardSize, int boards) {
+    Goban.checkBoardSize(boardSize);
+    if (boards <= 0 || (long) boards * boardSize * boardSize > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("Invalid number of boards: " + boards);
+    }
+    this.boardSize = boardSize;
+    this.boards = boards;
+    points = boardSize * boardSize;
+    maskWords = (points + 63) >>> 6;
+    geometry = BoardGeometry.forBoardSize(boardSize);
+    zobrist = ZobristTable.forBoardSize(boardSize);
+    cells = new byte[boards * points];
+    hashes = new long[boards];
+    previousHashes = new long[2 * boards];
+    previousCounts = new byte[boards];
+    previousIndices = new byte[boards];
+  }
+
+  public int getBoardSize() {
+    return boardSize;
+  }
+
+  public int getBoardCount() {
+    return boards;
+  }
+
+  /**
+   * Returns the number of longs legalMask writes for one board.
+   */
+
+  public int getMaskWords() {
+    return maskWords;
+  }
+
+  public Stone getStone(int board, int linearPosition) {
+    return STONES[cells[board * points + linearPosition]];
+  }
+
+  /**
+   * Returns the Zobrist hash of board, the same value a Goban with the same stones has.
+   */
+
+  public long getHash(int board) {
+    return hashes[board];
+  }
+
+  /**
+   * Empties board and forgets its ko history.
+   */
+
+  public void clear(int board) {
+    Arrays.fill(cells, board * points, (board + 1) * points, (byte) 0);
+    hashes[board] = 0L;
+    previousCounts[board] = 0;
+    previousIndices[board] = 0;
+  }
+
+  /**
+   * Overwrites board to with a copy of board from, ko history included.
+   */
+
+  public void copyBoard(int from, int to) {
+    System.arraycopy(cells, from * points, cells, to * points, points);
+    hashes[to] = hashes[from];
+    previousHashes[2 * to] = previousHashes[2 * from];
+    previousHashes[2 * to + 1] = previousHashes[2 * from + 1];
+    previousCounts[to] = previousCounts[from];
+    previousIndices[to] = previousIndices[from];
+  }
+
+  /**
+   * Plays stone on linearPosition of board. GameRecord.PASS is accepted as a pass and
+   * leaves the board unchanged.
+   * @return true if the move was legal and has been played.
+   */
+
+  public boolean play(int board, int linearPosition, Stone stone) {
+    return play(new Scratch(points), board, linearPosition, stone);
+  }
+
+  /**
+   * Plays moves[i] with stone on boards[i] for the first count boards.
+   * @param played receives for every move whether it was legal and has been played.
+   * @return the number of moves that were played.
+   */
+
+  public int play(int[] boards, int[] moves, int count, Stone stone, boolean[] played) {
+    Scratch scratch = new Scratch(points);
+    int playedCount = 0;
+    for (int i = 0; i < count; i++) {
+      played[i] = play(scratch, boards[i], moves[i], stone);
+      if (played[i]) {
+        playedCount += 1;
+      }
+    }
+    return playedCount;
+  }
+
+  /**
+   * Sets bit linearPosition of mask for every legal move of stone on board, in
+   * getMaskWords longs starting at offset.
+   * @return the number of legal moves.
+   */
+
+  public int legalMask(int board, Stone stone, long[] mask, int offset) {
+    return legalMask(new Scratch(points), board, stone, mask, offset);
+  }
+
+  /**
+   * Writes the legal moves of stone on boards[i] to masks, getMaskWords longs per board in
+   * the order of boards, for the first count boards.
+   * @return the total number of legal moves.
+   */
+
+  public int legalMask(int[] boards, int count, Stone stone, long[] masks) {
+    Scratch scratch = new Scratch(points);
+    int total = 0;
+    for (int i = 0; i < count; i++) {
+      total += legalMask(scratch, boards[i], stone, masks, i * maskWords);
+    }
+    return total;
+  }
+
+  /**
+   * Area scores board as AreaScorer does without settled positions.
+   */
+
+  public AreaScore score(int board) {
+    Scratch scratch = new Scratch(points);
+    Stone[] ownership = new Stone[points];
+    fillAreas(scratch, board, ownership);
+    return new AreaScore(scratch.blackArea, scratch.whiteArea,
+        points - scratch.blackArea - scratch.whiteArea, ownership);
+  }
+
+  /**
+   * Area scores the first count boards, allocating nothing per board.
+   * @param margins receives black area minus white area for every board.
+   */
+
+  public void score(int[] boards, int count, int[] margins) {
+    Scratch scratch = new Scratch(points);
+    for (int i = 0; i < count; i++) {
+      fillAreas(scratch, boards[i], null);
+      margins[i] = scratch.blackArea - scratch.whiteArea;
+    }
+  }
+
+  private boolean play(Scratch scratch, int board, int linearPosition, Stone stone) {
+    if (linearPosition == GameRecord.PASS) {
+      return true;
+    }
+    if (stone == Stone.EMPTY || linearPosition < 0 || linearPosition >= points
+        || cells[board * points + linearPosition] != 0) {
+      return false;
+    }
+    long resultHash = resolve(scratch, board, linearPosition, stone);
+    if (isRepetition(board, resultHash)) {
+      return false;
+    }
+    int base = board * points;
+    cells[base + linearPosition] = (byte) stone.ordinal();
+    for (int i = 0; i < scratch.capturedCount; i++) {
+      cells[base + scratch.captured[i]] = 0;
+    }
+    hashes[board] = resultHash;
+    int index = previousIndices[board];
+    previousHashes[2 * board + index] = resultHash;
+    previousIndices[board] = (byte) (index ^ 1);
+    previousCounts[board] = (byte) Math.min(previousCounts[board] + 1, 2);
+    return true;
+  }
+
+  private int legalMask(Scratch scratch, int board, Stone stone, long[] mask, int offset) {
+    Arrays.fill(mask, offset, offset + maskWords, 0L);
+    if (stone == Stone.EMPTY) {
+      return 0;
+    }
+    int[] neighbours = geometry.neighbourTable();
+    int[] neighbourCounts = geometry.neighbourCounts();
+    int base = board * points;
+    int count = 0;
+    for (int position = 0; position < points; position++) {
+      if (cells[base + position] != 0) {
+        continue;
+      }
+      boolean open = true;
+      for (int k = 4 * position, end = k + neighbourCounts[position]; k < end && open; k++) {
+        open = cells[base + neighbours[k]] == 0;
+      }
+      long resultHash = open ? hashes[board] ^ zobrist.getKey(position, stone)
+          : resolve(scratch, board, position, stone);
+      if (!isRepetition(board, resultHash)) {
+        mask[offset + (position >>> 6)] |= 1L << position;
+        count += 1;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Works out what stone on the empty linearPosition would capture, without changing the
+   * board: the captured positions are left in scratch.captured, the placed stone itself
+   * included after a suicide.
+   * @return the hash of the resulting position.
+   */
+
+  private long resolve(Scratch scratch, int board, int linearPosition, Stone stone) {
+    int[] neighbours = geometry.neighbourTable();
+    int[] neighbourCounts = geometry.neighbourCounts();
+    int base = board * points;
+    byte own = (byte) stone.ordinal();
+    byte opponent = (byte) stone.other().ordinal();
+    long resultHash = hashes[board] ^ zobrist.getKey(linearPosition, stone);
+
+    cells[base + linearPosition] = own;
+    scratch.capturedCount = 0;
+    int start = scratch.generation;
+    for (int k = 4 * linearPosition, end = k + neighbourCounts[linearPosition]; k < end; k++) {
+      int neighbour = neighbours[k];
+      int filled = scratch.visited[neighbour] - start;
+      if (cells[base + neighbour] == opponent && (filled <= 0 || filled > 4)
+          && !fillChain(scratch, base, neighbour)) {
+        resultHash ^= keepCaptured(scratch, stone.other());
+      }
+    }
+    if (scratch.capturedCount == 0 && !fillChain(scratch, base, linearPosition)) {
+      resultHash ^= keepCaptured(scratch, stone);
+    }
+    cells[base + linearPosition] = 0;
+    return resultHash;
+  }
+
+  /**
+   * Flood fills the chain at linearPosition into scratch.chain, marking it with a new
+   * generation. resolve skips neighbours marked by one of its own fills: they belong to a
+   * chain that was already looked at, even when that fill stopped early.
+   * @return true if the chain has a liberty; the fill stops early at the first one.
+   */
+
+  private boolean fillChain(Scratch scratch, int base, int linearPosition) {
+    int[] neighbours = geometry.neighbourTable();
+    int[] neighbourCounts = geometry.neighbourCounts();
+    byte colour = cells[base + linearPosition];
+    scratch.generation += 1;
+    int tail = 0;
+    scratch.chain[tail++] = linearPosition;
+    scratch.visited[linearPosition] = scratch.generation;
+    for (int head = 0; head < tail; head++) {
+      int current = scratch.chain[head];
+      for (int k = 4 * current, end = k + neighbourCounts[current]; k < end; k++) {
+        int neighbour = neighbours[k];
+        byte cell = cells[base + neighbour];
+        if (cell == 0) {
+          return true;
+        }
+        if (cell == colour && scratch.visited[neighbour] != scratch.generation) {
+          scratch.visited[neighbour] = scratch.generation;
+          scratch.chain[tail++] = neighbour;
+        }
+      }
+    }
+    scratch.chainLength = tail;
+    return false;
+  }
+
+  /**
+   * Appends the chain of the last fillChain to the captured positions.
+   * @return the XOR of the keys of its stones.
+   */
+
+  private long keepCaptured(Scratch scratch, Stone stone) {
+    long chainHash = 0L;
+    for (int i = 0; i < scratch.chainLength; i++) {
+      int position = scratch.chain[i];
+      scratch.captured[scratch.capturedCount++] = position;
+      chainHash ^= zobrist.getKey(position, stone);
+    }
+    return chainHash;
+  }
+
+  private boolean isRepetition(int board, long positionHash) {
+    for (int i = 0; i < previousCounts[board]; i++) {
+      if (previousHashes[2 * board + i] == positionHash) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Counts the area of both colours on board into scratch, and the owner of every position
+   * into ownership unless it is null.
+   */
+
+  private void fillAreas(Scratch scratch, int board, Stone[] ownership) {
+    int[] neighbours = geometry.neighbourTable();
+    int[] neighbourCounts = geometry.neighbourCounts();
+    int base = board * points;
+    int blackArea = 0;
+    int whiteArea = 0;
+    scratch.generation += 1;
+
+    for (int position = 0; position < points; position++) {
+      byte cell = cells[base + position];
+      if (cell != 0) {
+        if (cell == Stone.BLACK.ordinal()) {
+          blackArea += 1;
+        } else {
+          whiteArea += 1;
+        }
+        if (ownership != null) {
+          ownership[position] = STONES[cell];
+        }
+        continue;
+      }
+      if (scratch.visited[position] == scratch.generation) {
+        continue;
+      }
+
+      int borders = 0;
+      int tail = 0;
+      scratch.chain[tail++] = position;
+      scratch.visited[position] = scratch.generation;
+      for (int head = 0; head < tail; head++) {
+        int current = scratch.chain[head];
+        for (int k = 4 * current, end = k + neighbourCounts[current]; k < end; k++) {
+          int neighbour = neighbours[k];
+          byte neighbourCell = cells[base + neighbour];
+          if (neighbourCell != 0) {
+            borders |= neighbourCell;
+          } else if (scratch.visited[neighbour] != scratch.generation) {
+            scratch.visited[neighbour] = scratch.generation;
+            scratch.chain[tail++] = neighbour;
+          }
+        }
+      }
+
+      Stone owner = Stone.EMPTY;
+      if (borders == Stone.BLACK.ordinal()) {
+        owner = Stone.BLACK;
+        blackArea += tail;
+      } else if (borders == Stone.WHITE.ordinal()) {
+        owner = Stone.WHITE;
+        whiteArea += tail;
+      }
+      if (ownership != null) {
+        for (int i = 0; i < tail; i++) {
+          ownership[scratch.chain[i]] = owner;
+        }
+      }
+    }
+    scratch.blackArea = blackArea;
+    scratch.whiteArea = whiteArea;
+  }
+
+  /**
+   * The work buffers of one call. Visited positions are marked with a generation stamp,
+   * so nothing has to be cleared between flood fills.
+   */
+
+  private static class Scratch {
+
+    private final int[] visited;
+    private final int[] chain;
+    private final int[] captured;
+    private int generation;
+    private int chainLength;
+    private int capturedCount;
+    private int blackArea;
+    private int whiteArea;
+
+    private Scratch(int points) {
+      visited = new int[points];
+      chain = new int[points];
+      captured = new int[points];
+    }
+  }
+}
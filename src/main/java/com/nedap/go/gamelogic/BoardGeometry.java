@@ -0,0 +1,187 @@
+package com.nedap.go.gamelogic;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precomputed neighbour tables for a board size. The neighbours of linearPosition are stored
+ * in neighbours[4 * linearPosition] up to neighbours[4 * linearPosition + count - 1], so edges
+ * and corners simply have a shorter run and no bounds checks are needed while iterating.
+ * The diagonal neighbours are stored the same way in diagonals. The eight positions around
+ * every point, in PatternCode direction order, are kept as well; positions off the board
+ * are stored as -1 there. Finally, the geometry maps every position to its image under the
+ * eight rotations and reflections of the board.
+ * Geometries are created once per board size and shared by all boards.
+ */
+
+public class BoardGeometry {
+
+  public static final int SYMMETRIES = 8;
+
+  private static final Map<Integer, BoardGeometry> GEOMETRIES = new ConcurrentHashMap<>();
+
+  private final int boardSize;
+  private final int[] neighbours;
+  private final int[] neighbourCounts;
+  private final int[] diagonals;
+  private final int[] diagonalCounts;
+  private final int[] patternNeighbours;
+  private final int[] edgePatterns;
+  private final int[] symmetries;
+
+  private BoardGeometry(int boardSize) {
+    this.boardSize = boardSize;
+    int points = boardSize * boardSize;
+    neighbours = new int[4 * points];
+    neighbourCounts = new int[points];
+
+    int[] drow = {-1, 1, 0, 0};
+    int[] dcol = {0, 0, -1, 1};
+    for (int position = 0; position < points; position++) {
+      int row = position / boardSize;
+      int col = position % boardSize;
+      for (int i = 0; i < 4; i++) {
+        int adjustedRow = row + drow[i];
+        int adjustedCol = col + dcol[i];
+        if (adjustedRow >= 0 && adjustedRow < boardSize && adjustedCol >= 0
+            && adjustedCol < boardSize) {
+          neighbours[4 * position + neighbourCounts[position]++] =
+              adjustedRow * boardSize + adjustedCol;
+        }
+      }
+    }
+
+    diagonals = new int[4 * points];
+    diagonalCounts = new int[points];
+    patternNeighbours = new int[PatternCode.DIRECTIONS * points];
+    edgePatterns = new int[points];
+    for (int position = 0; position < points; position++) {
+      int row = position / boardSize;
+      int col = position % boardSize;
+      for (int direction = 0; direction < PatternCode.DIRECTIONS; direction++) {
+        int adjustedRow = row + PatternCode.rowOffset(direction);
+        int adjustedCol = col + PatternCode.colOffset(direction);
+        int index = PatternCode.DIRECTIONS * position + direction;
+        if (adjustedRow >= 0 && adjustedRow < boardSize && adjustedCol >= 0
+            && adjustedCol < boardSize) {
+          patternNeighbours[index] = adjustedRow * boardSize + adjustedCol;
+          if (direction % 2 == 1) {
+            diagonals[4 * position + diagonalCounts[position]++] =
+                adjustedRow * boardSize + adjustedCol;
+          }
+        } else {
+          patternNeighbours[index] = -1;
+          edgePatterns[position] =
+              PatternCode.with(edgePatterns[position], direction, PatternCode.OFF_BOARD);
+        }
+      }
+    }
+
+    symmetries = new int[SYMMETRIES * points];
+    int last = boardSize - 1;
+    for (int position = 0; position < points; position++) {
+      int row = position / boardSize;
+      int col = position % boardSize;
+      int[] images = {
+          row * boardSize + col,
+          col * boardSize + last - row,
+          (last - row) * boardSize + last - col,
+          (last - col) * boardSize + row,
+          row * boardSize + last - col,
+          col * boardSize + row,
+          (last - row) * boardSize + col,
+          (last - col) * boardSize + last - row};
+      for (int symmetry = 0; symmetry < SYMMETRIES; symmetry++) {
+        symmetries[symmetry * points + position] = images[symmetry];
+      }
+    }
+  }
+
+  public static BoardGeometry forBoardSize(int boardSize) {
+    return GEOMETRIES.computeIfAbsent(boardSize, BoardGeometry::new);
+  }
+
+  public int getBoardSize() {
+    return boardSize;
+  }
+
+  public int getNeighbourCount(int linearPosition) {
+    return neighbourCounts[linearPosition];
+  }
+
+  /**
+   * Returns the index-th neighbour of linearPosition, for index between 0 and
+   * getNeighbourCount(linearPosition) - 1.
+   */
+
+  public int getNeighbour(int linearPosition, int index) {
+    return neighbours[4 * linearPosition + index];
+  }
+
+  public int getDiagonalCount(int linearPosition) {
+    return diagonalCounts[linearPosition];
+  }
+
+  /**
+   * Returns the index-th diagonal neighbour of linearPosition, for index between 0 and
+   * getDiagonalCount(linearPosition) - 1.
+   */
+
+  public int getDiagonal(int linearPosition, int index) {
+    return diagonals[4 * linearPosition + index];
+  }
+
+  /**
+   * Returns where linearPosition ends up under symmetry: 0 is the identity, 1 to 3 rotate
+   * the board by 90, 180 and 270 degrees, 4 to 7 are the four reflections.
+   */
+
+  public int transform(int linearPosition, int symmetry) {
+    return symmetries[symmetry * boardSize * boardSize + linearPosition];
+  }
+
+  /**
+   * The shared neighbour table itself, for loops in this package. It must not be modified.
+   */
+
+  int[] neighbourTable() {
+    return neighbours;
+  }
+
+  int[] neighbourCounts() {
+    return neighbourCounts;
+  }
+
+  int[] diagonalTable() {
+    return diagonals;
+  }
+
+  int[] diagonalCounts() {
+    return diagonalCounts;
+  }
+
+  /**
+   * The eight surrounding positions of every point, at PatternCode.DIRECTIONS * position
+   * plus the direction, or -1 off the board. It must not be modified.
+   */
+
+  int[] patternNeighbourTable() {
+    return patternNeighbours;
+  }
+
+  /**
+   * The pattern code of every point on an empty board: only the off-board directions set.
+   */
+
+  int[] edgePatterns() {
+    return edgePatterns;
+  }
+
+  /**
+   * The image of every position under every symmetry, at symmetry * points + position.
+   */
+
+  int[] symmetryTable() {
+    return symmetries;
+  }
+}
@@ -0,0 +1,50 @@
+package com.nedap.go.gamelogic;
+
+/**
+ * A recorded game: the board size and all moves in the order they were played. Black plays
+ * the moves with an even index, white the ones with an odd index. A pass is stored as PASS.
+ */
+
+public class GameRecord {
+
+  public static final int PASS = -1;
+
+  private final String name;
+  private final int boardSize;
+  private final int[] moves;
+
+  public GameRecord(String name, int boardSize, int[] moves) {
+    Goban.checkBoardSize(boardSize);
+    this.name = name;
+    this.boardSize = boardSize;
+    this.moves = moves.clone();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getBoardSize() {
+    return boardSize;
+  }
+
+  public int getMoveCount() {
+    return moves.length;
+  }
+
+  public int getMove(int index) {
+    return moves[index];
+  }
+
+  /**
+   * Returns the colour that played the move with this index.
+   */
+
+  public Stone getStone(int index) {
+    return index % 2 == 0 ? Stone.BLACK : Stone.WHITE;
+  }
+
+  public String toString() {
+    return name + " (" + boardSize + "x" + boardSize + ", " + moves.length + " moves)";
+  }
+}
@@ -23,9 +23,13 @@ public class GoGame {
   }
 
   public GoGame(int boardSize, GoPlayer player1, GoPlayer player2) {
+    this(boardSize, player1, player2, false);
+  }
+
+  public GoGame(int boardSize, GoPlayer player1, GoPlayer player2, boolean positionalSuperko) {
     this.boardSize = boardSize;
     passCounter = 0;
-    goban = new Goban(boardSize);
+    goban = new Goban(boardSize, positionalSuperko);
 
     this.player1 = player1;
     this.player2 = player2;
@@ -93,14 +97,9 @@ public class GoGame {
   }
 
   public void scoreGame() {
-    goban.scoreGoban();
-    for (int position = 0; position < boardSize * boardSize; position++) {
-      if (goban.getStone(position) == player1.getStone()) {
-        player1.incrementScore();
-      } else if (goban.getStone(position) == player2.getStone()) {
-        player2.incrementScore();
-      }
-    }
+    AreaScore score = goban.score();
+    player1.addScore(score.getArea(player1.getStone()));
+    player2.addScore(score.getArea(player2.getStone()));
   }
 
   public GoPlayer getWinner() {
@@ -117,6 +116,14 @@ public class GoGame {
     return goban;
   }
 
+  /**
+   * Returns an immutable snapshot of the board, which stays valid while the game goes on.
+   */
+
+  public synchronized Position getPosition() {
+    return goban.getPosition();
+  }
+
   public Goban getGobanCopy() {
     return goban.gobanCopy();
   }
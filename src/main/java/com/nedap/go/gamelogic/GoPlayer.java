@@ -29,6 +29,10 @@ public class GoPlayer {
     score += 1;
   }
 
+  public void addScore(int points) {
+    score += points;
+  }
+
   public Stone getStone() {
     return stone;
   }
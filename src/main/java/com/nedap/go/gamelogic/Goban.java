@@ -2,28 +2,120 @@ package com.nedap.go.gamelogic;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
+import java.util.function.IntFunction;
 
-public class Goban {
+public class Goban implements Board {
 
-  private final Stone[][] goban;
+  public static final int MIN_BOARD_SIZE = 2;
+  public static final int MAX_BOARD_SIZE = 25;
+  public static final int DEFAULT_BOARD_SIZE = 9;
+
+  private final Stone[] points;
+  private final long[] cells;
+  private Position snapshot;
   private final int boardSize;
-  private final Queue<Stone[][]> previousGobans;
+  private final BoardGeometry geometry;
+  private final int[] neighbours;
+  private final int[] neighbourCounts;
+  private final int[] diagonals;
+  private final int[] diagonalCounts;
+  private final ZobristTable zobrist;
+  private final long[] previousHashes;
+  private int previousCount;
+  private int previousIndex;
+  private long hash;
+  private final LongHashSet positionHistory;
+  private final int[] chainParent;
+  private final int[] chainSize;
+  private final int[] chainLiberties;
+  private final long[] chainLibertySum;
+  private final long[] chainLibertySquares;
+  private final long[] chainHash;
+  private final int[] nextInChain;
+  private final int[] chainBuffer;
+  private final int[] neighbourRoots;
+  private final int[] floodQueue;
+  private final int[] libertyMarks;
+  private int libertyGeneration;
+  private int[] patterns;
+  private long[] symmetryHashes;
+  private int[] undoStack;
+  private int undoTop;
+  private long[] undoHashes;
+  private int undoDepth;
 
   public Goban(int boardSize) {
+    this(boardSize, false);
+  }
+
+  /**
+   * Creates an empty Goban. With positionalSuperko enabled, the hash of every position
+   * reached through makeMove is remembered, and a move may not recreate any of them.
+   * Otherwise only the last two positions are checked, which covers simple ko.
+   */
+
+  public Goban(int boardSize, boolean positionalSuperko) {
+    checkBoardSize(boardSize);
     this.boardSize = boardSize;
-    previousGobans = new LinkedList<>();
-    goban = new Stone[boardSize][boardSize];
-    for (int i = 0; i < boardSize; i++) {
-      for (int j = 0; j < boardSize; j++) {
-        goban[i][j] = Stone.EMPTY;
-      }
+    zobrist = ZobristTable.forBoardSize(boardSize);
+    previousHashes = new long[2];
+    if (positionalSuperko) {
+      positionHistory = new LongHashSet();
+      positionHistory.add(hash);
+    } else {
+      positionHistory = null;
+    }
+    geometry = BoardGeometry.forBoardSize(boardSize);
+    neighbours = geometry.neighbourTable();
+    neighbourCounts = geometry.neighbourCounts();
+    diagonals = geometry.diagonalTable();
+    diagonalCounts = geometry.diagonalCounts();
+    points = new Stone[boardSize * boardSize];
+    Arrays.fill(points, Stone.EMPTY);
+    cells = new long[Position.wordCount(boardSize)];
+    chainParent = new int[boardSize * boardSize];
+    chainSize = new int[boardSize * boardSize];
+    chainLiberties = new int[boardSize * boardSize];
+    chainLibertySum = new long[boardSize * boardSize];
+    chainLibertySquares = new long[boardSize * boardSize];
+    chainHash = new long[boardSize * boardSize];
+    nextInChain = new int[boardSize * boardSize];
+    chainBuffer = new int[boardSize * boardSize];
+    neighbourRoots = new int[4];
+    floodQueue = new int[boardSize * boardSize];
+    libertyMarks = new int[boardSize * boardSize];
+    undoStack = new int[4 * boardSize * boardSize];
+    undoHashes = new long[boardSize * boardSize];
+    for (int position = 0; position < boardSize * boardSize; position++) {
+      resetChain(position);
+    }
+  }
+
+  public static boolean isValidBoardSize(int boardSize) {
+    return boardSize >= MIN_BOARD_SIZE && boardSize <= MAX_BOARD_SIZE;
+  }
+
+  /**
+   * @throws IllegalArgumentException if boardSize is not a valid board size.
+   */
+
+  static void checkBoardSize(int boardSize) {
+    if (!isValidBoardSize(boardSize)) {
+      throw new IllegalArgumentException("Board size must be between " + MIN_BOARD_SIZE
+          + " and " + MAX_BOARD_SIZE + ": " + boardSize);
     }
   }
 
+  @Override
+  public int getBoardSize() {
+    return boardSize;
+  }
+
+  public boolean isPositionalSuperko() {
+    return positionHistory != null;
+  }
+
   public boolean isValidMove(int linearPosition) {
     return linearPosition >= 0 && linearPosition < boardSize * boardSize &&
         getStone(linearPosition) == Stone.EMPTY;
@@ -32,73 +124,229 @@ public class Goban {
   public List<Integer> getValidMoves(Stone stone) {
     List<Integer> validMoves = new ArrayList<>();
     for (int i = 0; i < boardSize * boardSize; i++) {
-      try {
-        if (isValidMove(i) && attemptMove(i, stone) != null) {
-          validMoves.add(i);
-        }
-      } catch (IllegalMoveException ignored) {
+      if (isLegal(i, stone)) {
+        validMoves.add(i);
       }
     }
     return validMoves;
   }
 
-  public Goban attemptMove(int linearPosition, Stone stone) throws IllegalMoveException {
-    if (!isValidMove(linearPosition)) {
-      throw new IllegalMoveException("Invalid move! Try again.");
+  /**
+   * Writes all legal moves for stone into moves, which must hold at least
+   * boardSize * boardSize positions.
+   * @return the number of legal moves written.
+   */
+
+  @Override
+  public int getLegalMoves(Stone stone, int[] moves) {
+    int count = 0;
+    for (int i = 0; i < boardSize * boardSize; i++) {
+      if (isLegal(i, stone)) {
+        moves[count++] = i;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Writes the legal moves for stone that are worth trying in a playout into moves: all
+   * legal moves except those that fill one of stone's own true eyes.
+   * @return the number of moves written.
+   */
+
+  public int getSensibleMoves(Stone stone, int[] moves) {
+    int count = 0;
+    for (int i = 0; i < boardSize * boardSize; i++) {
+      if (!isTrueEye(i, stone) && isLegal(i, stone)) {
+        moves[count++] = i;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Checks in O(1) if the empty linearPosition is an eye of stone, using the usual playout
+   * rule: all direct neighbours are stones of this colour, and at most one diagonal is an
+   * opponent stone, or none at all on the edge, where the point has fewer than four
+   * diagonals. Such an eye can only be filled by its owner, which is never a good move.
+   */
+
+  public boolean isTrueEye(int linearPosition, Stone stone) {
+    if (stone == Stone.EMPTY || getStone(linearPosition) != Stone.EMPTY) {
+      return false;
+    }
+    for (int k = 4 * linearPosition, end = k + neighbourCounts[linearPosition]; k < end; k++) {
+      if (getStone(neighbours[k]) != stone) {
+        return false;
+      }
     }
-    Goban gameCopy = gobanCopy();
+    int opponentDiagonals = 0;
+    for (int k = 4 * linearPosition, end = k + diagonalCounts[linearPosition]; k < end; k++) {
+      if (getStone(diagonals[k]) == stone.other()) {
+        opponentDiagonals += 1;
+      }
+    }
+    return opponentDiagonals <= (diagonalCounts[linearPosition] < 4 ? 0 : 1);
+  }
 
-    gameCopy.placeStone(linearPosition, stone);
+  /**
+   * Checks if stone may be played on linearPosition without simulating the move.
+   * An empty neighbour, a friendly chain with another liberty or an opponent chain whose
+   * last liberty is linearPosition all mean the placed stone survives. The hash of the
+   * resulting position is built from the chain hashes of the captured chains (or of the
+   * player's own chains after a suicide) and checked against the ko history.
+   * @return true if the move is legal.
+   */
 
-    List<Integer> playerStones = new ArrayList<>();
-    List<Integer> opponentStones = new ArrayList<>();
-    List<Integer> neighbours = gameCopy.getNeighbours(linearPosition);
+  public boolean isLegal(int linearPosition, Stone stone) {
+    if (stone == Stone.EMPTY || !isValidMove(linearPosition)) {
+      return false;
+    }
+    long resultHash = hash ^ zobrist.getKey(linearPosition, stone);
+    long suicideHash = hash;
+    boolean hasLiberty = false;
+    int roots = 0;
 
-    for (int neighbour : neighbours) {
-      if (gameCopy.getStone(neighbour) == stone) {
-        playerStones.add(neighbour);
-      } else if (gameCopy.getStone(neighbour) == stone.other()) {
-        opponentStones.add(neighbour);
+    for (int k = 4 * linearPosition, end = k + neighbourCounts[linearPosition]; k < end; k++) {
+      int neighbour = neighbours[k];
+      Stone neighbourStone = getStone(neighbour);
+      if (neighbourStone == Stone.EMPTY) {
+        hasLiberty = true;
+        continue;
+      }
+      int root = findChain(neighbour);
+      if (containsRoot(roots, root)) {
+        continue;
+      }
+      neighbourRoots[roots++] = root;
+      if (neighbourStone == stone) {
+        if (isAtariRoot(root)) {
+          suicideHash ^= chainHash[root];
+        } else {
+          hasLiberty = true;
+        }
+      } else if (isAtariRoot(root)) {
+        resultHash ^= chainHash[root];
+        hasLiberty = true;
       }
     }
+    return !isRepetition(hasLiberty ? resultHash : suicideHash);
+  }
 
-    if (neighbours.size() == opponentStones.size()) {
-      playerStones.add(linearPosition);
+  /**
+   * Tries stone on linearPosition without changing the board.
+   * @return true if the move is legal.
+   */
+
+  public boolean attemptMove(int linearPosition, Stone stone) throws IllegalMoveException {
+    if (!isValidMove(linearPosition)) {
+      throw new IllegalMoveException("Invalid move! Try again.");
     }
+    return isLegal(linearPosition, stone);
+  }
 
-    for (int position : opponentStones) {
-      gameCopy.captureStones(position, stone.other());
+  public void makeMove(int linearPosition, Stone stone) throws IllegalMoveException {
+    if (!play(linearPosition, stone)) {
+      throw new IllegalMoveException("Invalid move! Try again.");
     }
+  }
 
-    for (int position : playerStones) {
-      gameCopy.captureStones(position, stone);
+  /**
+   * Places a stone on the board in place, then checks if it leads to any captures.
+   * Neighbouring opponent chains without liberties are captured first, after
+   * that the chain of the placed stone is captured if it has no liberties left.
+   * The captured stones are pushed on the undo stack, so the move can be taken
+   * back with undo. Illegal moves are rejected up front by isLegal.
+   * @return true if the move was legal and has been played.
+   */
+
+  @Override
+  public boolean play(int linearPosition, Stone stone) {
+    if (!isLegal(linearPosition, stone)) {
+      return false;
     }
-    for (Stone[][] previousGoban : previousGobans) {
-      if (Arrays.deepEquals(previousGoban, gameCopy.getGoban())) {
-        return null;
+    int frameStart = undoTop;
+    addStone(linearPosition, stone);
+
+    for (int k = 4 * linearPosition, end = k + neighbourCounts[linearPosition]; k < end; k++) {
+      int neighbour = neighbours[k];
+      if (getStone(neighbour) == stone.other() && chainLiberties[findChain(neighbour)] == 0) {
+        removeChain(neighbour);
       }
     }
-    return gameCopy;
+    boolean suicide = chainLiberties[findChain(linearPosition)] == 0;
+    if (suicide) {
+      removeChain(linearPosition);
+    }
+    int captured = undoTop - frameStart;
+
+    ensureUndoCapacity(4);
+    undoStack[undoTop++] = captured;
+    undoStack[undoTop++] = linearPosition;
+    undoStack[undoTop++] = (stone == Stone.WHITE ? 1 : 0) | (suicide ? 2 : 0);
+    undoStack[undoTop++] = previousCount;
+    if (undoDepth == undoHashes.length) {
+      undoHashes = Arrays.copyOf(undoHashes, 2 * undoHashes.length);
+    }
+    undoHashes[undoDepth++] = previousHashes[previousIndex];
+    recordPosition(hash);
+    return true;
   }
 
   /**
-   * Places a stone on the board, then checks if it leads to any captures.
-   * It checks all the neighbouring stones and adds them to playerStones or
-   * opponentStones. It then attempts to capture, starting from the neighbouring
-   * opponent's moves.
+   * Takes back the last move made with play or makeMove. The placed stone is removed,
+   * the captured stones are put back and the ko history is restored.
+   */
+
+  @Override
+  public void undo() {
+    if (undoDepth == 0) {
+      throw new IllegalStateException("No move to undo");
+    }
+    if (positionHistory != null) {
+      positionHistory.remove(hash);
+    }
+    previousIndex = (previousIndex + previousHashes.length - 1) % previousHashes.length;
+    previousHashes[previousIndex] = undoHashes[--undoDepth];
+    previousCount = undoStack[--undoTop];
 
+    int flags = undoStack[--undoTop];
+    int linearPosition = undoStack[--undoTop];
+    int captured = undoStack[--undoTop];
+    undoTop -= captured;
+    Stone stone = (flags & 1) == 1 ? Stone.WHITE : Stone.BLACK;
+    restore(linearPosition, stone, (flags & 2) == 2, undoTop, captured);
+  }
+
+  /**
+   * Returns the number of moves that can be taken back with undo.
    */
 
-  public void makeMove(int linearPosition, Stone stone) throws IllegalMoveException {
-    Goban gobanCopy = attemptMove(linearPosition, stone);
-    if (gobanCopy != null) {
-      if (previousGobans.size() > 1) {
-        previousGobans.poll();
+  public int getMoveCount() {
+    return undoDepth;
+  }
+
+  /**
+   * Reverts the stones of a single move: removes the placed stone and puts the captured
+   * stones in undoStack[from, from + captured) back. After a suicide the captured stones
+   * are the player's own, including the placed stone itself.
+   */
+
+  private void restore(int linearPosition, Stone stone, boolean suicide, int from, int captured) {
+    Stone capturedStone = suicide ? stone : stone.other();
+    if (!suicide) {
+      removeStone(linearPosition);
+    }
+    for (int i = from; i < from + captured; i++) {
+      if (undoStack[i] != linearPosition) {
+        addStone(undoStack[i], capturedStone);
       }
-      previousGobans.add(gobanCopy.getGoban());
-      updateGoban(gobanCopy);
-    } else {
-      throw new IllegalMoveException("Invalid move! Try again.");
+    }
+  }
+
+  private void ensureUndoCapacity(int extra) {
+    if (undoTop + extra > undoStack.length) {
+      undoStack = Arrays.copyOf(undoStack, Math.max(2 * undoStack.length, undoTop + extra));
     }
   }
 
@@ -111,149 +359,608 @@ public class Goban {
     }
   }
 
+  /**
+   * Returns the Zobrist hash of the current position. It is updated with one XOR for
+   * every stone that is placed or removed.
+   */
+
+  public long getHash() {
+    return hash;
+  }
+
+  /**
+   * Checks whether a position with this hash is one of the last two positions reached
+   * through makeMove, or any earlier position when positional superko is enabled.
+   * Comparing hashes replaces comparing full boards.
+   */
+
+  private boolean isRepetition(long positionHash) {
+    for (int i = 0; i < previousCount; i++) {
+      if (previousHashes[i] == positionHash) {
+        return true;
+      }
+    }
+    return positionHistory != null && positionHistory.contains(positionHash);
+  }
+
+  private void recordPosition(long positionHash) {
+    if (positionHistory != null) {
+      positionHistory.add(positionHash);
+    }
+    previousHashes[previousIndex] = positionHash;
+    previousIndex = (previousIndex + 1) % previousHashes.length;
+    previousCount = Math.min(previousCount + 1, previousHashes.length);
+  }
+
+  @Override
   public Stone getStone(int linearPosition) {
-    return goban[linearPosition / boardSize][linearPosition % boardSize];
+    return points[linearPosition];
   }
 
   public Stone getStone(int row, int col) {
-    return goban[row][col];
+    return points[row * boardSize + col];
   }
 
-  public void placeStone(int linearPosition, Stone stone) {
-    goban[linearPosition / boardSize][linearPosition % boardSize] = stone;
+  public BoardGeometry getGeometry() {
+    return geometry;
   }
 
-  public void updateGoban(Goban gobanCopy) {
-    for (int i = 0; i < boardSize; i++) {
-      for (int j = 0; j < boardSize; j++) {
-        goban[i][j] = gobanCopy.getGoban()[i][j];
+  /**
+   * Returns the number of distinct liberties of the chain at linearPosition, or 0 if the
+   * position is empty. A chain in atari is answered from the chain index in O(1), other
+   * chains by walking their stones once, without a flood fill or any allocation.
+   */
+
+  public int libertyCount(int linearPosition) {
+    return getLiberties(linearPosition, null);
+  }
+
+  /**
+   * Writes the distinct liberties of the chain at linearPosition into liberties, which must
+   * hold at least boardSize * boardSize positions, or may be null to only count them.
+   * @return the number of liberties, 0 if the position is empty.
+   */
+
+  public int getLiberties(int linearPosition, int[] liberties) {
+    if (getStone(linearPosition) == Stone.EMPTY) {
+      return 0;
+    }
+    int root = findChain(linearPosition);
+    if (isAtariRoot(root)) {
+      if (liberties != null) {
+        liberties[0] = (int) (chainLibertySum[root] / chainLiberties[root]);
       }
+      return 1;
     }
+    libertyGeneration += 1;
+    int count = 0;
+    int position = linearPosition;
+    do {
+      for (int k = 4 * position, end = k + neighbourCounts[position]; k < end; k++) {
+        int neighbour = neighbours[k];
+        if (getStone(neighbour) == Stone.EMPTY && libertyMarks[neighbour] != libertyGeneration) {
+          libertyMarks[neighbour] = libertyGeneration;
+          if (liberties != null) {
+            liberties[count] = neighbour;
+          }
+          count += 1;
+        }
+      }
+      position = nextInChain[position];
+    } while (position != linearPosition);
+    return count;
   }
 
   /**
-   * Creates a StoneChain object for a stone belonging to the current player
-   * starting from linearPosition.
-   * Checks every neighbour starting from linearPosition and adds it to
-   * the stones HashSet if the neighbour is the same as stone. Otherwise, the neighbour
-   * is added to the adjacentStones HashSet. The method will keep checking neighbours
-   * until no more surrounding stones belong to the current player.
-   * @return StoneChain
+   * Checks in O(1) if the chain at linearPosition has exactly one liberty left.
    */
 
-  public StoneChain getStoneChain(int linearPosition, Stone stone) {
-    StoneChain stoneChain = new StoneChain();
-    Queue<Integer> frontOfChain = new LinkedList<>();
-    frontOfChain.add(linearPosition);
+  public boolean isInAtari(int linearPosition) {
+    return getStone(linearPosition) != Stone.EMPTY && isAtariRoot(findChain(linearPosition));
+  }
 
-    while (!frontOfChain.isEmpty()) {
-      int currentPosition = frontOfChain.poll();
-      stoneChain.addStone(currentPosition);
+  /**
+   * Returns the last liberty of the chain at linearPosition if it is in atari, or -1.
+   */
 
-      for (int neighbour : getNeighbours(currentPosition)) {
-        if (stone.equals(getStone(neighbour)) && !stoneChain.containsStone(neighbour)) {
-          frontOfChain.add(neighbour);
+  public int atariLiberty(int linearPosition) {
+    if (!isInAtari(linearPosition)) {
+      return -1;
+    }
+    int root = findChain(linearPosition);
+    return (int) (chainLibertySum[root] / chainLiberties[root]);
+  }
 
-        } else if (!stone.equals(getStone(neighbour))) {
-          stoneChain.addAdjacent(neighbour);
+  /**
+   * Writes every legal move for stone that puts an opponent chain in atari into moves,
+   * which must hold at least boardSize * boardSize positions. These are the liberties of
+   * the opponent chains that have exactly two liberties.
+   * @return the number of moves written.
+   */
+
+  public int atariMoves(Stone stone, int[] moves) {
+    if (stone == Stone.EMPTY) {
+      return 0;
+    }
+    int count = 0;
+    for (int position = 0; position < boardSize * boardSize; position++) {
+      if (getStone(position) != stone.other() || findChain(position) != position
+          || isAtariRoot(position) || getLiberties(position, chainBuffer) != 2) {
+        continue;
+      }
+      for (int i = 0; i < 2; i++) {
+        int liberty = chainBuffer[i];
+        if (!containsMove(moves, count, liberty) && isLegal(liberty, stone)) {
+          moves[count++] = liberty;
         }
       }
     }
-    return stoneChain;
+    return count;
+  }
+
+  private static boolean containsMove(int[] moves, int count, int move) {
+    for (int i = 0; i < count; i++) {
+      if (moves[i] == move) {
+        return true;
+      }
+    }
+    return false;
   }
 
   /**
-   * Gets the StoneChain starting from linearPosition and checks if all adjacent stones
-   * belong to the other player. If true, removes all stones in the StoneChain from the board.
-   * If only a single stone is captured in this move, sets the koMove to the position of the
-   * captured stone.
+   * Returns the next stone of the chain at linearPosition. Following it from any stone
+   * visits the whole chain and comes back to that stone.
    */
 
-  public void captureStones(int linearPosition, Stone stone) {
-    StoneChain stoneChain = getStoneChain(linearPosition, stone);
-    for (int position : stoneChain.getAdjacentStones()) {
-      if (getStone(position) == Stone.EMPTY) {
-        return;
-      }
+  int nextStoneInChain(int linearPosition) {
+    return nextInChain[linearPosition];
+  }
+
+  /**
+   * Puts stone on linearPosition and keeps the chain index up to date. Placing
+   * Stone.EMPTY removes the stone that was there.
+   */
+
+  public void placeStone(int linearPosition, Stone stone) {
+    if (getStone(linearPosition) != Stone.EMPTY) {
+      removeStone(linearPosition);
     }
-    for (int position : stoneChain.getStoneChain()) {
-      placeStone(position, Stone.EMPTY);
+    if (stone != Stone.EMPTY) {
+      addStone(linearPosition, stone);
     }
   }
 
   /**
-   * Gets all neighbouring positions of linearPosition on the board, and returns them
-   * as a list. Adjusts for corners and edges based on the drow and dcol arrays.
-   * @return list of all neighbouring positions on the board.
+   * Returns the root position of the chain that linearPosition belongs to. Every chain
+   * in the union-find index is represented by one root, which holds its size and liberty
+   * count. Paths are halved on the way up so later lookups stay short, which writes to the
+   * index; only play, undo and the other methods that change the board use it.
    */
 
-  public List<Integer> getNeighbours(int linearPosition) {
-    int row = linearPosition / boardSize;
-    int col = linearPosition % boardSize;
-    int[] drow = {-1, 1, 0, 0};
-    int[] dcol = {0, 0, -1, 1};
-    List<Integer> neighbourList = new ArrayList<>();
+  int findChain(int linearPosition) {
+    int position = linearPosition;
+    while (chainParent[position] != position) {
+      chainParent[position] = chainParent[chainParent[position]];
+      position = chainParent[position];
+    }
+    return position;
+  }
+
+  /**
+   * Returns the same root as findChain without halving paths, so it never writes to the
+   * board. The analysers in this package use it to tell chains apart, which lets scoring
+   * run while spectators read the live board.
+   */
+
+  int chainRoot(int linearPosition) {
+    int position = linearPosition;
+    while (chainParent[position] != position) {
+      position = chainParent[position];
+    }
+    return position;
+  }
+
+  /**
+   * Returns a copy of the union-find parents of every position, for tests that check that
+   * a query leaves the board alone.
+   */
+
+  int[] copyChainIndex() {
+    return chainParent.clone();
+  }
+
+  /**
+   * Writes stone to linearPosition, both in points and in the packed cells that positions
+   * are copied from. The cached snapshot no longer matches the board after this.
+   */
+
+  private void setPoint(int linearPosition, Stone stone) {
+    if (symmetryHashes != null) {
+      updateSymmetryHashes(linearPosition, points[linearPosition], stone);
+    }
+    points[linearPosition] = stone;
+    cells[linearPosition >>> 5] = Position.withStone(cells[linearPosition >>> 5],
+        linearPosition, stone);
+    snapshot = null;
+    if (patterns != null) {
+      updatePatterns(linearPosition, stone);
+    }
+  }
 
-    for (int i = 0; i < 4; i++) {
-      int adjustedRow = row + drow[i];
-      int adjustedCol = col + dcol[i];
+  /**
+   * Writes the new field of linearPosition into the pattern codes of its eight surrounding
+   * positions. Nothing else changes, so captures cost eight writes per removed stone.
+   */
 
-      if (adjustedRow >= 0 && adjustedRow < boardSize && adjustedCol >= 0
-          && adjustedCol < boardSize) {
-        neighbourList.add(adjustedRow * boardSize + adjustedCol);
+  private void updatePatterns(int linearPosition, Stone stone) {
+    int[] patternNeighbours = geometry.patternNeighbourTable();
+    int field = PatternCode.field(stone);
+    for (int direction = 0; direction < PatternCode.DIRECTIONS; direction++) {
+      int neighbour = patternNeighbours[PatternCode.DIRECTIONS * linearPosition + direction];
+      if (neighbour >= 0) {
+        patterns[neighbour] =
+            PatternCode.with(patterns[neighbour], PatternCode.opposite(direction), field);
       }
     }
-    return neighbourList;
   }
 
   /**
-   * Scores the Goban. Checks each empty position on the board and gets the StoneChain
-   * from this position. If all stones adjacent to this (empty) StoneChain belong to one
-   * player, the territory belongs to that player and the entire StoneChain
-   * is filled with that player's stones. If the StoneChain
-   * is surrounded by stones from both players, the territory is neutral and the StoneChain
-   * remains empty.
+   * Starts keeping the 3x3 pattern code of every position up to date. The codes are computed
+   * once from the current board; after that every placed or removed stone only updates the
+   * eight positions around it. Boards that never ask for patterns do not pay for them.
+   */
+
+  public void enablePatternCodes() {
+    if (patterns != null) {
+      return;
+    }
+    patterns = geometry.edgePatterns().clone();
+    for (int position = 0; position < boardSize * boardSize; position++) {
+      if (getStone(position) != Stone.EMPTY) {
+        updatePatterns(position, getStone(position));
+      }
+    }
+  }
+
+  public boolean hasPatternCodes() {
+    return patterns != null;
+  }
+
+  /**
+   * Returns the 3x3 pattern code around linearPosition, see PatternCode.
+   * @throws IllegalStateException if pattern codes have not been enabled.
    */
 
-  public void scoreGoban() {
-    HashSet<Integer> neutralTerritory = new HashSet<>();
+  public int getPatternCode(int linearPosition) {
+    if (patterns == null) {
+      throw new IllegalStateException("Pattern codes are not enabled");
+    }
+    return patterns[linearPosition];
+  }
+
+  /**
+   * Replaces previous by stone at the image of linearPosition in each of the eight hashes.
+   */
 
+  private void updateSymmetryHashes(int linearPosition, Stone previous, Stone stone) {
+    int[] symmetries = geometry.symmetryTable();
+    int points = boardSize * boardSize;
+    for (int symmetry = 0; symmetry < BoardGeometry.SYMMETRIES; symmetry++) {
+      int image = symmetries[symmetry * points + linearPosition];
+      symmetryHashes[symmetry] ^= zobrist.getKey(image, previous) ^ zobrist.getKey(image, stone);
+    }
+  }
+
+  /**
+   * Starts keeping the Zobrist hash of each of the eight rotations and reflections of the
+   * board up to date, at eight XORs per placed or removed stone instead of one. Boards that
+   * never ask for canonical hashes do not pay for them.
+   */
+
+  public void enableSymmetryHashes() {
+    if (symmetryHashes != null) {
+      return;
+    }
+    symmetryHashes = new long[BoardGeometry.SYMMETRIES];
     for (int position = 0; position < boardSize * boardSize; position++) {
-      if (getStone(position) == Stone.EMPTY && !neutralTerritory.contains(position)) {
-        StoneChain emptyTerritory = getStoneChain(position, Stone.EMPTY);
+      updateSymmetryHashes(position, Stone.EMPTY, getStone(position));
+    }
+  }
 
-        if (territoryBelongsToPlayer(Stone.BLACK, emptyTerritory.getAdjacentStones())) {
-          for (int pos : emptyTerritory.getStoneChain()) {
-            placeStone(pos, Stone.BLACK);
-          }
+  public boolean hasSymmetryHashes() {
+    return symmetryHashes != null;
+  }
 
-        } else if (territoryBelongsToPlayer(Stone.WHITE, emptyTerritory.getAdjacentStones())) {
-          for (int pos : emptyTerritory.getStoneChain()) {
-            placeStone(pos, Stone.WHITE);
-          }
+  /**
+   * Returns the Zobrist hash of the board transformed by symmetry, see
+   * BoardGeometry.transform. Symmetry 0 is the board itself and equals getHash.
+   * @throws IllegalStateException if symmetry hashes have not been enabled.
+   */
 
-        } else {
-          neutralTerritory.addAll(emptyTerritory.getStoneChain());
+  public long getSymmetryHash(int symmetry) {
+    if (symmetryHashes == null) {
+      throw new IllegalStateException("Symmetry hashes are not enabled");
+    }
+    return symmetryHashes[symmetry];
+  }
+
+  /**
+   * Returns the smallest of the eight symmetry hashes. A position and all its rotations and
+   * reflections share this hash, so it can be used as a key for opening books and
+   * transposition tables that should treat them as the same position.
+   * @throws IllegalStateException if symmetry hashes have not been enabled.
+   */
+
+  public long getCanonicalHash() {
+    if (symmetryHashes == null) {
+      throw new IllegalStateException("Symmetry hashes are not enabled");
+    }
+    long canonical = symmetryHashes[0];
+    for (int symmetry = 1; symmetry < BoardGeometry.SYMMETRIES; symmetry++) {
+      canonical = Math.min(canonical, symmetryHashes[symmetry]);
+    }
+    return canonical;
+  }
+
+  /**
+   * Places stone on an empty linearPosition and merges it with the neighbouring chains
+   * of the same colour. Every neighbouring chain loses the liberty that was just filled.
+   * Liberties are counted once per adjacent stone, so a chain is captured exactly when its
+   * count reaches zero.
+   */
+
+  private void addStone(int linearPosition, Stone stone) {
+    setPoint(linearPosition, stone);
+    hash ^= zobrist.getKey(linearPosition, stone);
+    resetChain(linearPosition);
+    chainHash[linearPosition] = zobrist.getKey(linearPosition, stone);
+
+    int start = 4 * linearPosition;
+    int end = start + neighbourCounts[linearPosition];
+    for (int i = start; i < end; i++) {
+      int neighbour = neighbours[i];
+      if (getStone(neighbour) == Stone.EMPTY) {
+        addLiberty(linearPosition, neighbour);
+      } else {
+        removeLiberty(findChain(neighbour), linearPosition);
+      }
+    }
+    for (int i = start; i < end; i++) {
+      if (getStone(neighbours[i]) == stone) {
+        mergeChains(linearPosition, neighbours[i]);
+      }
+    }
+  }
+
+  /**
+   * Merges the chains of both positions, attaching the smaller chain to the larger one.
+   * The circular stone lists of both chains are joined by swapping their next pointers.
+   */
+
+  private void mergeChains(int position, int otherPosition) {
+    int root = findChain(position);
+    int otherRoot = findChain(otherPosition);
+    if (root == otherRoot) {
+      return;
+    }
+    if (chainSize[root] < chainSize[otherRoot]) {
+      int swap = root;
+      root = otherRoot;
+      otherRoot = swap;
+    }
+    chainParent[otherRoot] = root;
+    chainSize[root] += chainSize[otherRoot];
+    chainLiberties[root] += chainLiberties[otherRoot];
+    chainLibertySum[root] += chainLibertySum[otherRoot];
+    chainLibertySquares[root] += chainLibertySquares[otherRoot];
+    chainHash[root] ^= chainHash[otherRoot];
+
+    int next = nextInChain[root];
+    nextInChain[root] = nextInChain[otherRoot];
+    nextInChain[otherRoot] = next;
+  }
+
+  /**
+   * Removes every stone of the chain at linearPosition from the board and pushes their
+   * positions on the undo stack. Chains next to the removed stones get their liberties back.
+   */
+
+  private void removeChain(int linearPosition) {
+    ensureUndoCapacity(chainSize[findChain(linearPosition)]);
+    int position = linearPosition;
+    do {
+      undoStack[undoTop++] = position;
+      hash ^= zobrist.getKey(position, getStone(position));
+      setPoint(position, Stone.EMPTY);
+      position = nextInChain[position];
+    } while (position != linearPosition);
+
+    do {
+      int next = nextInChain[position];
+      for (int k = 4 * position, end = k + neighbourCounts[position]; k < end; k++) {
+        int neighbour = neighbours[k];
+        if (getStone(neighbour) != Stone.EMPTY) {
+          addLiberty(findChain(neighbour), position);
+        }
+      }
+      resetChain(position);
+      position = next;
+    } while (position != linearPosition);
+  }
+
+  /**
+   * Removes a single stone from the board. The rest of its chain may fall apart,
+   * so the remaining stones are rebuilt locally into new chains.
+   */
+
+  private void removeStone(int linearPosition) {
+    Stone stone = getStone(linearPosition);
+    hash ^= zobrist.getKey(linearPosition, stone);
+    setPoint(linearPosition, Stone.EMPTY);
+    for (int k = 4 * linearPosition, end = k + neighbourCounts[linearPosition]; k < end; k++) {
+      int neighbour = neighbours[k];
+      if (getStone(neighbour) == stone.other()) {
+        addLiberty(findChain(neighbour), linearPosition);
+      }
+    }
+
+    int remaining = 0;
+    for (int position = nextInChain[linearPosition]; position != linearPosition;
+        position = nextInChain[position]) {
+      chainBuffer[remaining++] = position;
+    }
+    resetChain(linearPosition);
+    for (int i = 0; i < remaining; i++) {
+      resetChain(chainBuffer[i]);
+      chainHash[chainBuffer[i]] = zobrist.getKey(chainBuffer[i], stone);
+    }
+
+    for (int i = 0; i < remaining; i++) {
+      int position = chainBuffer[i];
+      for (int k = 4 * position, end = k + neighbourCounts[position]; k < end; k++) {
+        int neighbour = neighbours[k];
+        if (getStone(neighbour) == Stone.EMPTY) {
+          addLiberty(findChain(position), neighbour);
+        } else if (getStone(neighbour) == stone) {
+          mergeChains(position, neighbour);
         }
       }
     }
   }
 
-  public String getScores() {
-    int blackScore = 0;
-    int whiteScore = 0;
-    for (int i = 0; i < boardSize * boardSize; i++) {
-      if (getStone(i) == Stone.BLACK) {
-        blackScore += 1;
-      } else if (getStone(i) == Stone.WHITE) {
-        whiteScore += 1;
+  /**
+   * Adds liberty to the chain with this root. Next to the count, the sum and the sum of
+   * squares of the liberty positions are kept. All liberties of a chain are the same
+   * position exactly when count * squares == sum * sum, which detects atari in O(1)
+   * even though shared liberties are counted more than once.
+   */
+
+  private void addLiberty(int root, int liberty) {
+    chainLiberties[root] += 1;
+    chainLibertySum[root] += liberty;
+    chainLibertySquares[root] += (long) liberty * liberty;
+  }
+
+  private void removeLiberty(int root, int liberty) {
+    chainLiberties[root] -= 1;
+    chainLibertySum[root] -= liberty;
+    chainLibertySquares[root] -= (long) liberty * liberty;
+  }
+
+  private boolean isAtariRoot(int root) {
+    return chainLiberties[root] > 0
+        && chainLiberties[root] * chainLibertySquares[root]
+        == chainLibertySum[root] * chainLibertySum[root];
+  }
+
+  private boolean containsRoot(int roots, int root) {
+    for (int i = 0; i < roots; i++) {
+      if (neighbourRoots[i] == root) {
+        return true;
       }
     }
-    return "BLACK: " + blackScore + "\nWHITE: " + whiteScore;
+    return false;
+  }
+
+  private void resetChain(int linearPosition) {
+    chainParent[linearPosition] = linearPosition;
+    chainSize[linearPosition] = 1;
+    chainLiberties[linearPosition] = 0;
+    chainLibertySum[linearPosition] = 0;
+    chainLibertySquares[linearPosition] = 0;
+    chainHash[linearPosition] = 0;
+    nextInChain[linearPosition] = linearPosition;
+  }
+
+  private static void copyChains(Goban source, Goban target) {
+    int points = source.boardSize * source.boardSize;
+    System.arraycopy(source.chainParent, 0, target.chainParent, 0, points);
+    System.arraycopy(source.chainSize, 0, target.chainSize, 0, points);
+    System.arraycopy(source.chainLiberties, 0, target.chainLiberties, 0, points);
+    System.arraycopy(source.chainLibertySum, 0, target.chainLibertySum, 0, points);
+    System.arraycopy(source.chainLibertySquares, 0, target.chainLibertySquares, 0, points);
+    System.arraycopy(source.chainHash, 0, target.chainHash, 0, points);
+    System.arraycopy(source.nextInChain, 0, target.nextInChain, 0, points);
   }
 
-  public boolean territoryBelongsToPlayer(Stone stone, HashSet<Integer> adjacentStone) {
-    for (int position : adjacentStone) {
+  public StoneChain getStoneChain(int linearPosition, Stone stone) {
+    return getStoneChain(linearPosition, stone, new StoneChain(boardSize));
+  }
+
+  /**
+   * Fills stoneChain with the chain for a stone belonging to the current player
+   * starting from linearPosition.
+   * Checks every neighbour starting from linearPosition and adds it to
+   * the stones bitset if the neighbour is the same as stone. Otherwise, the neighbour
+   * is added to the adjacent bitset, and to the liberties as well if it is empty.
+   * The method will keep checking neighbours until no more surrounding stones belong
+   * to the current player. The StoneChain is cleared first, so it can be reused.
+   * @return stoneChain
+   */
+
+  public StoneChain getStoneChain(int linearPosition, Stone stone, StoneChain stoneChain) {
+    stoneChain.clear();
+    int head = 0;
+    int tail = 0;
+    floodQueue[tail++] = linearPosition;
+    stoneChain.addStone(linearPosition);
+
+    while (head < tail) {
+      int currentPosition = floodQueue[head++];
+
+      for (int k = 4 * currentPosition, end = k + neighbourCounts[currentPosition]; k < end;
+          k++) {
+        int neighbour = neighbours[k];
+        if (stone.equals(getStone(neighbour))) {
+          if (!stoneChain.containsStone(neighbour)) {
+            stoneChain.addStone(neighbour);
+            floodQueue[tail++] = neighbour;
+          }
+        } else if (getStone(neighbour) == Stone.EMPTY) {
+          stoneChain.addLiberty(neighbour);
+        } else {
+          stoneChain.addAdjacent(neighbour);
+        }
+      }
+    }
+    return stoneChain;
+  }
+
+  /**
+   * Gets all neighbouring positions of linearPosition on the board from the precomputed
+   * neighbour table and returns them as a list. Hot loops iterate the BoardGeometry
+   * directly instead, which does not allocate.
+   * @return list of all neighbouring positions on the board.
+   */
+
+  public List<Integer> getNeighbours(int linearPosition) {
+    List<Integer> neighbourList = new ArrayList<>();
+    for (int i = 0; i < geometry.getNeighbourCount(linearPosition); i++) {
+      neighbourList.add(geometry.getNeighbour(linearPosition, i));
+    }
+    return neighbourList;
+  }
+
+  /**
+   * Scores the Goban by area without changing the board. Every stone counts for its
+   * colour, and empty regions count for the player whose stones surround them. Stones that
+   * are dead in pass-alive territory count for the owner of the territory.
+   * Use an AreaScorer and PassAliveAnalyzer directly to reuse their work buffers when
+   * scoring many boards.
+   * @return AreaScore with the area of both players and the owner of every position.
+   */
+
+  public AreaScore score() {
+    return new AreaScorer(boardSize).score(this, new PassAliveAnalyzer(boardSize).analyze(this));
+  }
+
+  public String getScores() {
+    return score().toString();
+  }
+
+  public boolean territoryBelongsToPlayer(Stone stone, StoneChain territory) {
+    for (int position = territory.nextAdjacent(0); position >= 0;
+        position = territory.nextAdjacent(position + 1)) {
       if (getStone(position) != stone) {
         return false;
       }
@@ -261,22 +968,128 @@ public class Goban {
     return true;
   }
 
-  public Goban gobanCopy() {
-    Goban gobanCopy = new Goban(boardSize);
+  /**
+   * Empties the board and forgets the ko history and the undo stack, so the same Goban can
+   * be used for a new game without allocating.
+   */
+
+  public void clear() {
+    Arrays.fill(points, Stone.EMPTY);
+    Arrays.fill(cells, 0L);
+    snapshot = null;
+    if (patterns != null) {
+      System.arraycopy(geometry.edgePatterns(), 0, patterns, 0, patterns.length);
+    }
+    if (symmetryHashes != null) {
+      Arrays.fill(symmetryHashes, 0L);
+    }
+    for (int position = 0; position < boardSize * boardSize; position++) {
+      resetChain(position);
+    }
+    hash = 0L;
+    previousCount = 0;
+    previousIndex = 0;
+    if (positionHistory != null) {
+      positionHistory.clear();
+      positionHistory.add(hash);
+    }
+    undoTop = 0;
+    undoDepth = 0;
+  }
+
+  /**
+   * Returns an immutable snapshot of the current position. It copies only the packed cells,
+   * 2 bits per position, so 3 longs on 9x9 and 12 on 19x19. As long as the board does not
+   * change, every call returns the same snapshot, so history, spectators and other threads
+   * can share it instead of copying the board.
+   */
+
+  public Position getPosition() {
+    if (snapshot == null) {
+      snapshot = new Position(boardSize, cells.clone(), hash);
+    }
+    return snapshot;
+  }
 
-    for (int i = 0; i < boardSize; i++) {
-      for (int j = 0; j < boardSize; j++) {
-        gobanCopy.goban[i][j] = goban[i][j];
+  /**
+   * Makes this Goban an exact copy of other without allocating, so a search can reset its
+   * own board to the current game position before every move. The last two positions are
+   * copied along, so ko is checked the same way on both boards; the undo stack is emptied.
+   * If both boards use positional superko, the position history is copied too. A board with
+   * positional superko that copies one without only remembers the current position.
+   * @throws IllegalArgumentException if the board sizes differ.
+   */
+
+  public void copyFrom(Goban other) {
+    if (other.boardSize != boardSize) {
+      throw new IllegalArgumentException("Board sizes differ: " + other.boardSize + " and "
+          + boardSize);
+    }
+    System.arraycopy(other.points, 0, points, 0, points.length);
+    System.arraycopy(other.cells, 0, cells, 0, cells.length);
+    snapshot = other.snapshot;
+    if (patterns != null) {
+      if (other.patterns != null) {
+        System.arraycopy(other.patterns, 0, patterns, 0, patterns.length);
+      } else {
+        patterns = null;
+        enablePatternCodes();
       }
     }
-    return gobanCopy;
+    if (symmetryHashes != null) {
+      if (other.symmetryHashes != null) {
+        System.arraycopy(other.symmetryHashes, 0, symmetryHashes, 0, symmetryHashes.length);
+      } else {
+        symmetryHashes = null;
+        enableSymmetryHashes();
+      }
+    }
+    copyChains(other, this);
+    hash = other.hash;
+    System.arraycopy(other.previousHashes, 0, previousHashes, 0, previousHashes.length);
+    previousCount = other.previousCount;
+    previousIndex = other.previousIndex;
+    if (positionHistory != null) {
+      if (other.positionHistory != null) {
+        positionHistory.copyFrom(other.positionHistory);
+      } else {
+        positionHistory.clear();
+        positionHistory.add(hash);
+      }
+    }
+    undoTop = 0;
+    undoDepth = 0;
   }
 
-  public Stone[][] getGoban() {
-    return goban;
+  /**
+   * Returns a new Goban with the same position, ko history and superko setting, made with
+   * copyFrom. Pattern codes and symmetry hashes are kept up to date on the copy if they are
+   * on this board.
+   */
+
+  public Goban gobanCopy() {
+    Goban gobanCopy = new Goban(boardSize, isPositionalSuperko());
+    if (patterns != null) {
+      gobanCopy.enablePatternCodes();
+    }
+    if (symmetryHashes != null) {
+      gobanCopy.enableSymmetryHashes();
+    }
+    gobanCopy.copyFrom(this);
+    return gobanCopy;
   }
 
+  @Override
   public String toString() {
+    return render(boardSize, this::getStone);
+  }
+
+  /**
+   * Draws a board of boardSize with row and column numbers, taking the stone of every
+   * linearPosition from stones. Goban, BitGoban and Position all print themselves this way.
+   */
+
+  static String render(int boardSize, IntFunction<Stone> stones) {
     StringBuilder boardString = new StringBuilder();
 
     boardString.append("   ");
@@ -288,7 +1101,7 @@ public class Goban {
     for (int row = 0; row < boardSize; row++) {
       boardString.append(row).append("  ");
       for (int col = 0; col < boardSize; col++) {
-        boardString.append(getStone(row, col)).append("  ");
+        boardString.append(stones.apply(row * boardSize + col)).append("  ");
       }
       if (row < boardSize - 1) {
         boardString.append("\n");
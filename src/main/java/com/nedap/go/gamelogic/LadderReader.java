@@ -0,0 +1,141 @@
+package com.nedap.go.gamelogic;
+
+import java.util.Arrays;
+
+/**
+ * Reads ladders on a Goban: a chain that is chased by ataris on alternating sides until it
+ * is captured or reaches enough liberties to escape. The sequences are played on the board
+ * itself with play and undo, so the Goban is back in its original position afterwards and
+ * nothing is copied. The defender may extend on its last liberty or capture an attacking
+ * chain in atari; the attacker tries both liberties of the chased chain.
+ * A LadderReader is not thread-safe; use one per thread.
+ */
+
+public class LadderReader {
+
+  private final int maxDepth;
+  private int[] candidates = new int[64];
+  private int[] liberties = new int[0];
+  private int candidateTop;
+
+  public LadderReader() {
+    this(200);
+  }
+
+  /**
+   * @param maxDepth the number of moves after which a ladder counts as escaped.
+   */
+
+  public LadderReader(int maxDepth) {
+    this.maxDepth = maxDepth;
+  }
+
+  /**
+   * Checks if the chain at linearPosition, which is in atari and whose owner is to move,
+   * is captured in a ladder whatever its owner does.
+   */
+
+  public boolean isCaptured(Goban goban, int linearPosition) {
+    if (!goban.isInAtari(linearPosition)) {
+      return false;
+    }
+    return defenderLoses(goban, linearPosition, 0);
+  }
+
+  /**
+   * Checks if the opponent can capture the chain at linearPosition, which has two liberties,
+   * in a ladder when the opponent is to move.
+   * @return the atari that starts the ladder, or -1 if there is none.
+   */
+
+  public int findLadderCapture(Goban goban, int linearPosition) {
+    if (goban.libertyCount(linearPosition) != 2) {
+      return -1;
+    }
+    return attackerMove(goban, linearPosition, 0);
+  }
+
+  private boolean defenderLoses(Goban goban, int linearPosition, int depth) {
+    if (depth >= maxDepth) {
+      return false;
+    }
+    Stone defender = goban.getStone(linearPosition);
+    int from = candidateTop;
+    pushCandidate(goban.atariLiberty(linearPosition));
+    int position = linearPosition;
+    do {
+      for (int i = 0; i < goban.getGeometry().getNeighbourCount(position); i++) {
+        int neighbour = goban.getGeometry().getNeighbour(position, i);
+        if (goban.getStone(neighbour) == defender.other()) {
+          int liberty = goban.atariLiberty(neighbour);
+          if (liberty >= 0 && !containsCandidate(from, liberty)) {
+            pushCandidate(liberty);
+          }
+        }
+      }
+      position = goban.nextStoneInChain(position);
+    } while (position != linearPosition);
+
+    boolean loses = true;
+    for (int i = from; i < candidateTop && loses; i++) {
+      if (!goban.play(candidates[i], defender)) {
+        continue;
+      }
+      int libertyCount = goban.libertyCount(linearPosition);
+      if (libertyCount >= 3) {
+        loses = false;
+      } else if (libertyCount == 2) {
+        loses = attackerMove(goban, linearPosition, depth + 1) >= 0;
+      }
+      goban.undo();
+    }
+    candidateTop = from;
+    return loses;
+  }
+
+  private int attackerMove(Goban goban, int linearPosition, int depth) {
+    if (depth >= maxDepth) {
+      return -1;
+    }
+    Stone attacker = goban.getStone(linearPosition).other();
+    int from = candidateTop;
+    if (candidateTop + 2 > candidates.length) {
+      candidates = Arrays.copyOf(candidates, 2 * candidates.length);
+    }
+    if (liberties.length < goban.getBoardSize() * goban.getBoardSize()) {
+      liberties = new int[goban.getBoardSize() * goban.getBoardSize()];
+    }
+    goban.getLiberties(linearPosition, liberties);
+    candidates[candidateTop++] = liberties[0];
+    candidates[candidateTop++] = liberties[1];
+
+    int move = -1;
+    for (int i = from; i < candidateTop && move < 0; i++) {
+      if (!goban.play(candidates[i], attacker)) {
+        continue;
+      }
+      if (goban.isInAtari(linearPosition) && defenderLoses(goban, linearPosition, depth + 1)) {
+        move = candidates[i];
+      }
+      goban.undo();
+    }
+    candidateTop = from;
+    return move;
+  }
+
+  private void pushCandidate(int move) {
+    if (candidateTop == candidates.length) {
+      candidates = Arrays.copyOf(candidates, 2 * candidates.length);
+    }
+    candidates[candidateTop++] = move;
+  }
+
+  private boolean containsCandidate(int from, int move) {
+    for (int i = from; i < candidateTop; i++) {
+      if (candidates[i] == move) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,152 @@
+package com.nedap.go.gamelogic;
+
+import java.util.Arrays;
+
+/**
+ * A set of primitive longs using open addressing with linear probing. Position hashes are
+ * stored directly in a long[] without boxing, so a game of a few hundred moves needs only a
+ * few KB. The key 0 is used to mark free slots and is tracked separately.
+ */
+
+public class LongHashSet {
+
+  private static final int DEFAULT_CAPACITY = 256;
+
+  private long[] keys;
+  private int size;
+  private boolean containsZero;
+
+  public LongHashSet() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public LongHashSet(int expectedSize) {
+    keys = new long[tableSize(expectedSize)];
+  }
+
+  public boolean contains(long key) {
+    if (key == 0L) {
+      return containsZero;
+    }
+    int mask = keys.length - 1;
+    for (int slot = slot(key, mask); keys[slot] != 0L; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Adds key to the set and doubles the table once it is half full.
+   * @return true if the key was not in the set yet.
+   */
+
+  public boolean add(long key) {
+    if (key == 0L) {
+      boolean added = !containsZero;
+      containsZero = true;
+      return added;
+    }
+    int mask = keys.length - 1;
+    int slot = slot(key, mask);
+    while (keys[slot] != 0L) {
+      if (keys[slot] == key) {
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = key;
+    size += 1;
+    if (2 * size > keys.length) {
+      resize(2 * keys.length);
+    }
+    return true;
+  }
+
+  /**
+   * Removes key from the set. The entries after the freed slot are shifted back, so
+   * lookups never have to skip over deleted slots.
+   * @return true if the key was in the set.
+   */
+
+  public boolean remove(long key) {
+    if (key == 0L) {
+      boolean removed = containsZero;
+      containsZero = false;
+      return removed;
+    }
+    int mask = keys.length - 1;
+    int slot = slot(key, mask);
+    while (keys[slot] != key) {
+      if (keys[slot] == 0L) {
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    int free = slot;
+    for (int next = (free + 1) & mask; keys[next] != 0L; next = (next + 1) & mask) {
+      int home = slot(keys[next], mask);
+      if (((next - home) & mask) >= ((next - free) & mask)) {
+        keys[free] = keys[next];
+        free = next;
+      }
+    }
+    keys[free] = 0L;
+    size -= 1;
+    return true;
+  }
+
+  /**
+   * Makes this set a copy of other, reusing its table when it is large enough.
+   */
+
+  public void copyFrom(LongHashSet other) {
+    if (keys.length == other.keys.length) {
+      System.arraycopy(other.keys, 0, keys, 0, keys.length);
+    } else {
+      keys = other.keys.clone();
+    }
+    size = other.size;
+    containsZero = other.containsZero;
+  }
+
+  public int size() {
+    return containsZero ? size + 1 : size;
+  }
+
+  public void clear() {
+    Arrays.fill(keys, 0L);
+    size = 0;
+    containsZero = false;
+  }
+
+  private void resize(int capacity) {
+    long[] oldKeys = keys;
+    keys = new long[capacity];
+    int mask = capacity - 1;
+    for (long key : oldKeys) {
+      if (key != 0L) {
+        int slot = slot(key, mask);
+        while (keys[slot] != 0L) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+      }
+    }
+  }
+
+  private static int slot(long key, int mask) {
+    long mixed = key * 0x9E3779B97F4A7C15L;
+    return (int) (mixed ^ (mixed >>> 32)) & mask;
+  }
+
+  private static int tableSize(int expectedSize) {
+    int capacity = 16;
+    while (capacity < 2 * expectedSize) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+}
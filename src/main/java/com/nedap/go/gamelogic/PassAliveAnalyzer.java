@@ -0,0 +1,213 @@
+package com.nedap.go.gamelogic;
+
+import java.util.Arrays;
+
+/**
+ * Finds the pass-alive chains and territory of both colours with Benson's algorithm.
+ * For one colour, the board is split into its chains (blocks) and the connected regions of
+ * all other positions. A region is vital to a bordering block if every empty position in
+ * it is a liberty of that block. Blocks with fewer than two vital regions are removed,
+ * then every region that borders a removed block, until nothing changes. The blocks that
+ * are left can never be captured, however often their owner passes.
+ * A region that is left counts as pass-alive territory if at most one of its empty
+ * positions does not touch the owner's stones: the opponent cannot make two eyes in it,
+ * so its stones there are dead.
+ * A PassAliveAnalyzer is not thread-safe; use one per thread.
+ */
+
+public class PassAliveAnalyzer {
+
+  private final int boardSize;
+  private final int[] blockOf;
+  private final int[] regionOf;
+  private final int[] regionStart;
+  private final int[] regionPoints;
+  private final int[] regionEmpty;
+  private final int[] regionInternal;
+  private final int[] edgeStart;
+  private final int[] edgeBlocks;
+  private final boolean[] edgeVital;
+  private final int[] blockMark;
+  private final int[] blockLiberties;
+  private final int[] vitalCount;
+  private final boolean[] blockAlive;
+  private final boolean[] regionAlive;
+  private final int[] pointBlocks;
+
+  public PassAliveAnalyzer(int boardSize) {
+    this.boardSize = boardSize;
+    int points = boardSize * boardSize;
+    blockOf = new int[points];
+    regionOf = new int[points];
+    regionStart = new int[points + 1];
+    regionPoints = new int[points];
+    regionEmpty = new int[points];
+    regionInternal = new int[points];
+    edgeStart = new int[points + 1];
+    edgeBlocks = new int[4 * points];
+    edgeVital = new boolean[4 * points];
+    blockMark = new int[points];
+    blockLiberties = new int[points];
+    vitalCount = new int[points];
+    blockAlive = new boolean[points];
+    regionAlive = new boolean[points];
+    pointBlocks = new int[4];
+  }
+
+  public int getBoardSize() {
+    return boardSize;
+  }
+
+  /**
+   * Returns for every position the colour it settles for: the colour of a pass-alive chain,
+   * or the owner of pass-alive territory, including dead opponent stones in it.
+   * Stone.EMPTY means the position is not settled yet.
+   * @throws IllegalArgumentException if goban does not match the board size of this
+   *                                  PassAliveAnalyzer.
+   */
+
+  public Stone[] analyze(Goban goban) {
+    if (goban.getBoardSize() != boardSize) {
+      throw new IllegalArgumentException("Board sizes differ: " + goban.getBoardSize() + " and "
+          + boardSize);
+    }
+    Stone[] settled = new Stone[boardSize * boardSize];
+    Arrays.fill(settled, Stone.EMPTY);
+    analyze(goban, Stone.BLACK, settled);
+    analyze(goban, Stone.WHITE, settled);
+    return settled;
+  }
+
+  private void analyze(Goban goban, Stone stone, Stone[] settled) {
+    BoardGeometry geometry = goban.getGeometry();
+    int[] neighbours = geometry.neighbourTable();
+    int[] neighbourCounts = geometry.neighbourCounts();
+    int points = boardSize * boardSize;
+
+    int blocks = 0;
+    Arrays.fill(blockOf, -1);
+    for (int position = 0; position < points; position++) {
+      if (goban.getStone(position) == stone) {
+        int root = goban.chainRoot(position);
+        if (blockOf[root] == -1) {
+          blockOf[root] = blocks++;
+        }
+        blockOf[position] = blockOf[root];
+      }
+    }
+
+    int regions = 0;
+    int filled = 0;
+    Arrays.fill(regionOf, -1);
+    for (int position = 0; position < points; position++) {
+      if (goban.getStone(position) == stone || regionOf[position] != -1) {
+        continue;
+      }
+      regionStart[regions] = filled;
+      regionOf[position] = regions;
+      regionPoints[filled++] = position;
+      for (int i = regionStart[regions]; i < filled; i++) {
+        int current = regionPoints[i];
+        for (int k = 4 * current, end = k + neighbourCounts[current]; k < end; k++) {
+          int neighbour = neighbours[k];
+          if (goban.getStone(neighbour) != stone && regionOf[neighbour] == -1) {
+            regionOf[neighbour] = regions;
+            regionPoints[filled++] = neighbour;
+          }
+        }
+      }
+      regions += 1;
+    }
+    regionStart[regions] = filled;
+
+    int edges = 0;
+    Arrays.fill(blockMark, 0, blocks, -1);
+    for (int region = 0; region < regions; region++) {
+      edgeStart[region] = edges;
+      regionEmpty[region] = 0;
+      regionInternal[region] = 0;
+      for (int i = regionStart[region]; i < regionStart[region + 1]; i++) {
+        int current = regionPoints[i];
+        int adjacent = 0;
+        for (int k = 4 * current, end = k + neighbourCounts[current]; k < end; k++) {
+          int block = blockOf[neighbours[k]];
+          if (goban.getStone(neighbours[k]) != stone || contains(adjacent, block)) {
+            continue;
+          }
+          pointBlocks[adjacent++] = block;
+          if (blockMark[block] != region) {
+            blockMark[block] = region;
+            blockLiberties[block] = 0;
+            edgeBlocks[edges++] = block;
+          }
+        }
+        if (goban.getStone(current) == Stone.EMPTY) {
+          regionEmpty[region] += 1;
+          if (adjacent == 0) {
+            regionInternal[region] += 1;
+          }
+          for (int j = 0; j < adjacent; j++) {
+            blockLiberties[pointBlocks[j]] += 1;
+          }
+        }
+      }
+      for (int edge = edgeStart[region]; edge < edges; edge++) {
+        edgeVital[edge] = regionEmpty[region] > 0
+            && blockLiberties[edgeBlocks[edge]] == regionEmpty[region];
+      }
+    }
+    edgeStart[regions] = edges;
+
+    Arrays.fill(blockAlive, 0, blocks, true);
+    Arrays.fill(regionAlive, 0, regions, true);
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      Arrays.fill(vitalCount, 0, blocks, 0);
+      for (int region = 0; region < regions; region++) {
+        if (regionAlive[region]) {
+          for (int edge = edgeStart[region]; edge < edgeStart[region + 1]; edge++) {
+            if (edgeVital[edge]) {
+              vitalCount[edgeBlocks[edge]] += 1;
+            }
+          }
+        }
+      }
+      for (int block = 0; block < blocks; block++) {
+        if (blockAlive[block] && vitalCount[block] < 2) {
+          blockAlive[block] = false;
+          changed = true;
+        }
+      }
+      for (int region = 0; region < regions; region++) {
+        for (int edge = edgeStart[region]; edge < edgeStart[region + 1] && regionAlive[region];
+            edge++) {
+          regionAlive[region] = blockAlive[edgeBlocks[edge]];
+        }
+      }
+    }
+
+    for (int position = 0; position < points; position++) {
+      if (goban.getStone(position) == stone && blockAlive[blockOf[position]]) {
+        settled[position] = stone;
+      }
+    }
+    for (int region = 0; region < regions; region++) {
+      if (regionAlive[region] && edgeStart[region + 1] > edgeStart[region]
+          && regionInternal[region] <= 1) {
+        for (int i = regionStart[region]; i < regionStart[region + 1]; i++) {
+          settled[regionPoints[i]] = stone;
+        }
+      }
+    }
+  }
+
+  private boolean contains(int count, int block) {
+    for (int i = 0; i < count; i++) {
+      if (pointBlocks[i] == block) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,74 @@
+package com.nedap.go.gamelogic;
+
+/**
+ * Helpers for 3x3 pattern codes. The code of a point holds 2 bits for each of its eight
+ * surrounding positions, starting above the point and going clockwise: north, north-east,
+ * east, south-east, south, south-west, west and north-west. Each field is EMPTY, BLACK,
+ * WHITE or OFF_BOARD, so every code fits in 16 bits and can index a table of PATTERNS
+ * entries directly.
+ */
+
+public final class PatternCode {
+
+  public static final int DIRECTIONS = 8;
+  public static final int PATTERNS = 1 << (2 * DIRECTIONS);
+  public static final int EMPTY = 0;
+  public static final int BLACK = 1;
+  public static final int WHITE = 2;
+  public static final int OFF_BOARD = 3;
+
+  private static final int[] ROW_OFFSETS = {-1, -1, 0, 1, 1, 1, 0, -1};
+  private static final int[] COL_OFFSETS = {0, 1, 1, 1, 0, -1, -1, -1};
+
+  private PatternCode() {
+  }
+
+  public static int rowOffset(int direction) {
+    return ROW_OFFSETS[direction];
+  }
+
+  public static int colOffset(int direction) {
+    return COL_OFFSETS[direction];
+  }
+
+  /**
+   * Returns the direction pointing back, seen from the position in direction.
+   */
+
+  public static int opposite(int direction) {
+    return (direction + 4) & 7;
+  }
+
+  /**
+   * Returns the field of code in direction: EMPTY, BLACK, WHITE or OFF_BOARD.
+   */
+
+  public static int get(int code, int direction) {
+    return (code >>> (2 * direction)) & 3;
+  }
+
+  public static int with(int code, int direction, int field) {
+    int shift = 2 * direction;
+    return (code & ~(3 << shift)) | (field << shift);
+  }
+
+  public static int field(Stone stone) {
+    if (stone == Stone.BLACK) {
+      return BLACK;
+    } else if (stone == Stone.WHITE) {
+      return WHITE;
+    } else {
+      return EMPTY;
+    }
+  }
+
+  /**
+   * Returns code with black and white exchanged, so a table written from black's point of
+   * view can be used for white as well.
+   */
+
+  public static int swapColours(int code) {
+    int differs = (code ^ (code >>> 1)) & 0x5555;
+    return code ^ (differs | (differs << 1));
+  }
+}
@@ -0,0 +1,102 @@
+package com.nedap.go.gamelogic;
+
+/**
+ * Counts every sequence of legal moves up to a given depth, like perft in chess engines.
+ * The counts of the fixed start positions are known, so they check move generation,
+ * captures, suicide and ko in one go, and the time it takes gives the number of nodes per
+ * second of an engine. Passes are not counted as moves. At the last ply only the legal
+ * moves are counted, they are not played.
+ * PerftBenchmark times the counts of Goban and BitGoban side by side.
+ */
+
+public class Perft {
+
+  /**
+   * Start positions for Perft. The moves are played alternately, starting with black.
+   */
+
+  public enum StartPosition {
+    EMPTY_9X9(9),
+    KO_5X5(5, 1, 2, 5, 12, 11, 8, 24, 6),
+    EYES_5X5(5, 20, 1, 21, 5, 22, 6, 23, 7, 24, 8, 15, 3);
+
+    private final int boardSize;
+    private final int[] moves;
+
+    StartPosition(int boardSize, int... moves) {
+      this.boardSize = boardSize;
+      this.moves = moves;
+    }
+
+    public int getBoardSize() {
+      return boardSize;
+    }
+
+    /**
+     * Returns the colour that is to move after the start moves.
+     */
+
+    public Stone getTurn() {
+      return moves.length % 2 == 0 ? Stone.BLACK : Stone.WHITE;
+    }
+
+    public Goban createGoban() {
+      return setUp(new Goban(boardSize));
+    }
+
+    public BitGoban createBitGoban() {
+      return setUp(new BitGoban(boardSize));
+    }
+
+    private <B extends Board> B setUp(B board) {
+      Stone stone = Stone.BLACK;
+      for (int move : moves) {
+        if (!board.play(move, stone)) {
+          throw new IllegalStateException(this + ": illegal start move " + move);
+        }
+        stone = stone.other();
+      }
+      return board;
+    }
+  }
+
+  private final Board board;
+  private final int[][] moveBuffers;
+
+  public Perft(Board board, int maxDepth) {
+    this.board = board;
+    int points = board.getBoardSize() * board.getBoardSize();
+    moveBuffers = new int[maxDepth][points];
+  }
+
+  /**
+   * Returns the number of legal move sequences of exactly depth moves, starting with stone.
+   * The board is back in its original position afterwards.
+   */
+
+  public long count(Stone stone, int depth) {
+    if (depth > moveBuffers.length) {
+      throw new IllegalArgumentException("Depth " + depth + " is larger than " +
+          moveBuffers.length);
+    }
+    if (depth == 0) {
+      return 1;
+    }
+    return count(stone, depth, 0);
+  }
+
+  private long count(Stone stone, int depth, int ply) {
+    int[] moves = moveBuffers[ply];
+    int count = board.getLegalMoves(stone, moves);
+    if (depth == 1) {
+      return count;
+    }
+    long nodes = 0;
+    for (int i = 0; i < count; i++) {
+      board.play(moves[i], stone);
+      nodes += count(stone.other(), depth - 1, ply + 1);
+      board.undo();
+    }
+    return nodes;
+  }
+}
@@ -0,0 +1,113 @@
+package com.nedap.go.gamelogic;
+
+import java.util.Arrays;
+
+/**
+ * An immutable snapshot of the stones on a board. Every linearPosition takes 2 bits, so a
+ * 19x19 position fits in 12 longs. Positions are equal when they have the same board size
+ * and the same stones; the Zobrist hash of the board is kept alongside, so hashCode is free
+ * and most unequal positions are told apart without comparing the stones.
+ * Positions are created with Goban.getPosition and can be shared freely between threads.
+ */
+
+public final class Position {
+
+  private static final Stone[] STONES = Stone.values();
+
+  private final int boardSize;
+  private final long[] cells;
+  private final long hash;
+
+  Position(int boardSize, long[] cells, long hash) {
+    this.boardSize = boardSize;
+    this.cells = cells;
+    this.hash = hash;
+  }
+
+  /**
+   * Returns the number of longs needed for the cells of a board of boardSize.
+   */
+
+  static int wordCount(int boardSize) {
+    return (boardSize * boardSize + 31) >>> 5;
+  }
+
+  /**
+   * Returns word with the cell of linearPosition set to stone.
+   */
+
+  static long withStone(long word, int linearPosition, Stone stone) {
+    int shift = (linearPosition & 31) << 1;
+    return (word & ~(3L << shift)) | ((long) stone.ordinal() << shift);
+  }
+
+  public int getBoardSize() {
+    return boardSize;
+  }
+
+  public Stone getStone(int linearPosition) {
+    int shift = (linearPosition & 31) << 1;
+    return STONES[(int) (cells[linearPosition >>> 5] >>> shift) & 3];
+  }
+
+  public Stone getStone(int row, int col) {
+    return getStone(row * boardSize + col);
+  }
+
+  /**
+   * Returns the Zobrist hash of the position, the same value Goban.getHash returned when
+   * the snapshot was taken.
+   */
+
+  public long getHash() {
+    return hash;
+  }
+
+  /**
+   * Returns the canonical hash of the position: the smallest Zobrist hash of its eight
+   * rotations and reflections, the same value Goban.getCanonicalHash returns. It is computed
+   * from the cells on every call, so archives can group games by position up to symmetry.
+   */
+
+  public long getCanonicalHash() {
+    ZobristTable zobrist = ZobristTable.forBoardSize(boardSize);
+    int[] symmetries = BoardGeometry.forBoardSize(boardSize).symmetryTable();
+    int points = boardSize * boardSize;
+    long[] hashes = new long[BoardGeometry.SYMMETRIES];
+    for (int position = 0; position < points; position++) {
+      Stone stone = getStone(position);
+      if (stone != Stone.EMPTY) {
+        for (int symmetry = 0; symmetry < BoardGeometry.SYMMETRIES; symmetry++) {
+          hashes[symmetry] ^= zobrist.getKey(symmetries[symmetry * points + position], stone);
+        }
+      }
+    }
+    long canonical = hashes[0];
+    for (int symmetry = 1; symmetry < BoardGeometry.SYMMETRIES; symmetry++) {
+      canonical = Math.min(canonical, hashes[symmetry]);
+    }
+    return canonical;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof Position position)) {
+      return false;
+    }
+    return boardSize == position.boardSize && hash == position.hash
+        && Arrays.equals(cells, position.cells);
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(hash);
+  }
+
+  @Override
+  public String toString() {
+    return Goban.render(boardSize, this::getStone);
+  }
+}
@@ -0,0 +1,124 @@
+package com.nedap.go.gamelogic;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Replays large numbers of recorded games in parallel to check and score them. The records
+ * are split over a ForkJoinPool in batches of 64. Every batch gets its own Goban,
+ * AreaScorer and PassAliveAnalyzer per board size and clears the Goban between games, so a
+ * replay allocates little more than its result, and nothing is left behind on the pool
+ * threads once replayAll returns. Unlike makeBulkMoves, an illegal move is not
+ * silently ignored: its index is reported, and it counts as a pass, so the colours of the
+ * remaining moves stay correct.
+ */
+
+public class ReplayEngine {
+
+  private static final int BATCH_SIZE = 64;
+
+  private final ForkJoinPool pool;
+
+  public ReplayEngine() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  public ReplayEngine(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * Replays all records on the pool.
+   * @return the results, in the same order as records.
+   */
+
+  public List<ReplayResult> replayAll(List<GameRecord> records) {
+    GameRecord[] games = records.toArray(new GameRecord[0]);
+    ReplayResult[] results = new ReplayResult[games.length];
+    pool.invoke(new ReplayTask(games, results, 0, games.length));
+    return Arrays.asList(results);
+  }
+
+  /**
+   * Replays a single record on the calling thread.
+   */
+
+  public ReplayResult replay(GameRecord record) {
+    return new Replayer().replay(record);
+  }
+
+  // Tasks only live for one invoke and are never serialized.
+  @SuppressWarnings("serial")
+  private static class ReplayTask extends RecursiveAction {
+
+    private final GameRecord[] games;
+    private final ReplayResult[] results;
+    private final int from;
+    private final int to;
+
+    private ReplayTask(GameRecord[] games, ReplayResult[] results, int from, int to) {
+      this.games = games;
+      this.results = results;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= BATCH_SIZE) {
+        Replayer replayer = new Replayer();
+        for (int i = from; i < to; i++) {
+          results[i] = replayer.replay(games[i]);
+        }
+      } else {
+        int middle = (from + to) >>> 1;
+        invokeAll(new ReplayTask(games, results, from, middle),
+            new ReplayTask(games, results, middle, to));
+      }
+    }
+  }
+
+  /**
+   * The boards and buffers of one batch. Boards are created on first use for each board
+   * size and reused for every later game of that size.
+   */
+
+  private static class Replayer {
+
+    private final Goban[] gobans = new Goban[Goban.MAX_BOARD_SIZE + 1];
+    private final AreaScorer[] scorers = new AreaScorer[Goban.MAX_BOARD_SIZE + 1];
+    private final PassAliveAnalyzer[] analyzers =
+        new PassAliveAnalyzer[Goban.MAX_BOARD_SIZE + 1];
+    private int[] illegalMoves = new int[16];
+
+    private ReplayResult replay(GameRecord record) {
+      int boardSize = record.getBoardSize();
+      Goban goban = gobans[boardSize];
+      if (goban == null) {
+        goban = new Goban(boardSize);
+        gobans[boardSize] = goban;
+        scorers[boardSize] = new AreaScorer(boardSize);
+        analyzers[boardSize] = new PassAliveAnalyzer(boardSize);
+      } else {
+        goban.clear();
+      }
+
+      int illegalCount = 0;
+      for (int i = 0; i < record.getMoveCount(); i++) {
+        int move = record.getMove(i);
+        if (move != GameRecord.PASS && !goban.play(move, record.getStone(i))) {
+          if (illegalCount == illegalMoves.length) {
+            illegalMoves = Arrays.copyOf(illegalMoves, 2 * illegalMoves.length);
+          }
+          illegalMoves[illegalCount++] = i;
+        }
+      }
+
+      return new ReplayResult(record, Arrays.copyOf(illegalMoves, illegalCount),
+          goban.getPosition(),
+          scorers[boardSize].score(goban, analyzers[boardSize].analyze(goban)));
+    }
+  }
+}
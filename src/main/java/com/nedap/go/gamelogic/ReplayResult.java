@@ -0,0 +1,50 @@
+package com.nedap.go.gamelogic;
+
+/**
+ * The outcome of replaying a GameRecord: the indices of the moves that were illegal, the
+ * stones on the board after the last move and the area score of that position.
+ */
+
+public class ReplayResult {
+
+  private final GameRecord record;
+  private final int[] illegalMoves;
+  private final Position finalPosition;
+  private final AreaScore score;
+
+  public ReplayResult(GameRecord record, int[] illegalMoves, Position finalPosition,
+      AreaScore score) {
+    this.record = record;
+    this.illegalMoves = illegalMoves;
+    this.finalPosition = finalPosition;
+    this.score = score;
+  }
+
+  public GameRecord getRecord() {
+    return record;
+  }
+
+  /**
+   * Returns the indices in the record of all moves that could not be played.
+   */
+
+  public int[] getIllegalMoves() {
+    return illegalMoves.clone();
+  }
+
+  public boolean isValid() {
+    return illegalMoves.length == 0;
+  }
+
+  public Position getFinalPosition() {
+    return finalPosition;
+  }
+
+  public Stone getStone(int linearPosition) {
+    return finalPosition.getStone(linearPosition);
+  }
+
+  public AreaScore getScore() {
+    return score;
+  }
+}
@@ -1,41 +1,134 @@
 package com.nedap.go.gamelogic;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
+import java.util.Arrays;
 
 /**
- * a StoneChain contains two HashSets, one for all stones belonging to a specific chain
- * and one for all stones (or empty positions) surrounding this StoneChain.
+ * a StoneChain contains board-sized bitsets: one for all stones belonging to a specific chain,
+ * one for all stones (or empty positions) surrounding this StoneChain and one for the empty
+ * positions among those, its liberties. A StoneChain can be cleared and filled again, so
+ * chain queries do not have to allocate. Positions are iterated like java.util.BitSet:
+ * for (int p = chain.nextStone(0); p >= 0; p = chain.nextStone(p + 1)).
  */
 
 public class StoneChain {
 
-  private final HashSet<Integer> stones;
-  private final HashSet<Integer> adjacentStones;
+  private final long[] stones;
+  private final long[] adjacentStones;
+  private final long[] liberties;
+  private int size;
+  private int adjacentCount;
+  private int libertyCount;
 
-  public StoneChain() {
-    stones = new HashSet<>();
-    adjacentStones = new HashSet<>();
+  public StoneChain(int boardSize) {
+    int words = (boardSize * boardSize + 63) >>> 6;
+    stones = new long[words];
+    adjacentStones = new long[words];
+    liberties = new long[words];
+  }
+
+  public void clear() {
+    Arrays.fill(stones, 0L);
+    Arrays.fill(adjacentStones, 0L);
+    Arrays.fill(liberties, 0L);
+    size = 0;
+    adjacentCount = 0;
+    libertyCount = 0;
   }
 
   public void addStone(int position) {
-    stones.add(position);
+    if (setBit(stones, position)) {
+      size += 1;
+    }
   }
 
   public void addAdjacent(int position) {
-    adjacentStones.add(position);
+    if (setBit(adjacentStones, position)) {
+      adjacentCount += 1;
+    }
+  }
+
+  /**
+   * Adds an empty position next to the chain. A liberty is also an adjacent position.
+   */
+
+  public void addLiberty(int position) {
+    addAdjacent(position);
+    if (setBit(liberties, position)) {
+      libertyCount += 1;
+    }
+  }
+
+  /**
+   * Adds all stones of other to this chain, for example to collect several empty regions.
+   */
+
+  public void addStones(StoneChain other) {
+    size = 0;
+    for (int i = 0; i < stones.length; i++) {
+      stones[i] |= other.stones[i];
+      size += Long.bitCount(stones[i]);
+    }
   }
 
   public boolean containsStone(int position) {
-    return stones.contains(position);
+    return getBit(stones, position);
+  }
+
+  public boolean containsAdjacent(int position) {
+    return getBit(adjacentStones, position);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int getAdjacentCount() {
+    return adjacentCount;
+  }
+
+  public int getLibertyCount() {
+    return libertyCount;
+  }
+
+  /**
+   * Returns the first stone of the chain at or after position, or -1 if there is none.
+   */
+
+  public int nextStone(int position) {
+    return nextSetBit(stones, position);
+  }
+
+  public int nextAdjacent(int position) {
+    return nextSetBit(adjacentStones, position);
+  }
+
+  public int nextLiberty(int position) {
+    return nextSetBit(liberties, position);
+  }
+
+  private static boolean getBit(long[] bits, int position) {
+    return (bits[position >>> 6] & (1L << position)) != 0;
   }
 
-  public HashSet<Integer> getStoneChain() {
-    return stones;
+  private static boolean setBit(long[] bits, int position) {
+    long before = bits[position >>> 6];
+    bits[position >>> 6] = before | (1L << position);
+    return (before & (1L << position)) == 0;
   }
 
-  public HashSet<Integer> getAdjacentStones() {
-    return adjacentStones;
+  private static int nextSetBit(long[] bits, int position) {
+    int word = position >>> 6;
+    if (word >= bits.length) {
+      return -1;
+    }
+    long current = bits[word] & (-1L << position);
+    while (current == 0) {
+      word += 1;
+      if (word == bits.length) {
+        return -1;
+      }
+      current = bits[word];
+    }
+    return (word << 6) + Long.numberOfTrailingZeros(current);
   }
 }
@@ -0,0 +1,44 @@
+package com.nedap.go.gamelogic;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Random 64-bit keys for every (position, colour) pair on a board of a given size. The hash
+ * of a position is the XOR of the keys of all stones on the board, so placing or removing a
+ * stone changes the hash with a single XOR. Tables are created once per board size and
+ * shared by all boards; the keys are seeded, so hashes are the same in every run.
+ */
+
+public class ZobristTable {
+
+  private static final Map<Integer, ZobristTable> TABLES = new ConcurrentHashMap<>();
+  private static final long SEED = 0x5DEECE66DL;
+
+  private final int points;
+  private final long[] keys;
+
+  private ZobristTable(int boardSize) {
+    points = boardSize * boardSize;
+    keys = new long[2 * points];
+    SplittableRandom random = new SplittableRandom(SEED * 31 + boardSize);
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = random.nextLong();
+    }
+  }
+
+  public static ZobristTable forBoardSize(int boardSize) {
+    return TABLES.computeIfAbsent(boardSize, ZobristTable::new);
+  }
+
+  public long getKey(int linearPosition, Stone stone) {
+    if (stone == Stone.BLACK) {
+      return keys[linearPosition];
+    } else if (stone == Stone.WHITE) {
+      return keys[points + linearPosition];
+    } else {
+      return 0L;
+    }
+  }
+}
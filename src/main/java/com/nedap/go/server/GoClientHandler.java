@@ -1,6 +1,7 @@
 package com.nedap.go.server;
 
 import com.nedap.go.gamelogic.GoGame;
+import com.nedap.go.gamelogic.Goban;
 import com.nedap.go.gamelogic.GoPlayer;
 import com.nedap.go.gamelogic.IllegalMoveException;
 import com.nedap.go.gamelogic.NotYourTurnException;
@@ -74,7 +75,7 @@ public class GoClientHandler implements Runnable {
           break;
 
         case GoProtocol.QUEUE:
-          handleQueue();
+          handleQueue(parsedInput);
           break;
 
         case GoProtocol.MOVE:
@@ -122,18 +123,32 @@ public class GoClientHandler implements Runnable {
   }
 
   /**
-   * Adds the player to the waiting queue. If the player is already in the queue,
-   * removes them instead.
+   * Adds the player to the waiting queue. QUEUE~<size> joins the queue for a board of that
+   * size, plain QUEUE the queue for the default 9x9 board. If the player is already in a
+   * queue, removes them instead.
    */
-  public void handleQueue() {
+  public void handleQueue(String[] parsedInput) {
     if (username != null && game == null) {
-      if (server.getQueue().contains(this)) {
+      if (server.isQueued(this)) {
         server.removeFromQueue(this);
         sendMessage(GoProtocol.QUEUED);
-      } else {
-        sendMessage(GoProtocol.QUEUED);
-        server.addToQueue(this);
+        return;
+      }
+      int boardSize = Goban.DEFAULT_BOARD_SIZE;
+      try {
+        if (parsedInput.length > 1) {
+          boardSize = Integer.parseInt(parsedInput[1].trim());
+        }
+      } catch (NumberFormatException e) {
+        boardSize = -1;
+      }
+      if (!Goban.isValidBoardSize(boardSize)) {
+        sendMessage(protocolMessage(GoProtocol.ERROR, "Board size must be between "
+            + Goban.MIN_BOARD_SIZE + " and " + Goban.MAX_BOARD_SIZE + "!"));
+        return;
       }
+      sendMessage(GoProtocol.QUEUED);
+      server.addToQueue(this, boardSize);
     }
   }
 
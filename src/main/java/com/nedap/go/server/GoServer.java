@@ -1,21 +1,24 @@
 package com.nedap.go.server;
 
 import com.nedap.go.gamelogic.GoGame;
+import com.nedap.go.gamelogic.Goban;
 import com.nedap.go.gamelogic.GoPlayer;
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 
 public class GoServer implements Runnable {
 
   private final ServerSocket serverSocket;
   private final List<GoClientHandler> handlers = new ArrayList<>();
-  private final Queue<GoClientHandler> playerQueue = new LinkedList<>();
+  private final Map<Integer, Queue<GoClientHandler>> playerQueues = new HashMap<>();
   private GoServerTUI serverTUI;
 
   public GoServer(int port, GoServerTUI serverTUI) throws IOException {
@@ -31,28 +34,48 @@ public class GoServer implements Runnable {
     return serverSocket.getLocalPort();
   }
 
-  public Queue<GoClientHandler> getQueue() {
-    synchronized (playerQueue) {
-      return playerQueue;
+  /**
+   * Checks if clientHandler is waiting in the queue of any board size.
+   */
+  public boolean isQueued(GoClientHandler clientHandler) {
+    synchronized (playerQueues) {
+      for (Queue<GoClientHandler> playerQueue : playerQueues.values()) {
+        if (playerQueue.contains(clientHandler)) {
+          return true;
+        }
+      }
+      return false;
     }
   }
 
   public void addToQueue(GoClientHandler clientHandler) {
-    synchronized (playerQueue) {
+    addToQueue(clientHandler, Goban.DEFAULT_BOARD_SIZE);
+  }
+
+  /**
+   * Adds clientHandler to the queue for boardSize. Every board size has its own queue, and
+   * as soon as two players wait for the same size a game of that size is started.
+   */
+  public void addToQueue(GoClientHandler clientHandler, int boardSize) {
+    synchronized (playerQueues) {
+      Queue<GoClientHandler> playerQueue =
+          playerQueues.computeIfAbsent(boardSize, size -> new LinkedList<>());
       playerQueue.add(clientHandler);
-      printToServer(
-          protocolMessage(GoProtocol.QUEUED, clientHandler.getUsername()) + " joined the queue");
+      printToServer(protocolMessage(GoProtocol.QUEUED, clientHandler.getUsername())
+          + " joined the queue for " + boardSize + "x" + boardSize);
       if (playerQueue.size() > 1) {
-        startNewGame(playerQueue.poll(), playerQueue.poll());
+        startNewGame(playerQueue.poll(), playerQueue.poll(), boardSize);
       }
     }
   }
 
   public void removeFromQueue(GoClientHandler clientHandler) {
-    synchronized (playerQueue) {
+    synchronized (playerQueues) {
       printToServer(
           protocolMessage(GoProtocol.QUEUED, clientHandler.getUsername()) + " left the queue");
-      playerQueue.remove(clientHandler);
+      for (Queue<GoClientHandler> playerQueue : playerQueues.values()) {
+        playerQueue.remove(clientHandler);
+      }
     }
   }
 
@@ -74,11 +97,16 @@ public class GoServer implements Runnable {
     return false;
   }
 
+  public synchronized void startNewGame(GoClientHandler player1, GoClientHandler player2) {
+    startNewGame(player1, player2, Goban.DEFAULT_BOARD_SIZE);
+  }
+
   /**
-   * Starts a new game with the first two players in the waiting queue.
+   * Starts a new game of boardSize with the first two players in the waiting queue.
    */
-  public synchronized void startNewGame(GoClientHandler player1, GoClientHandler player2) {
-    GoGame newGame = new GoGame(9, player1, player2);
+  public synchronized void startNewGame(GoClientHandler player1, GoClientHandler player2,
+      int boardSize) {
+    GoGame newGame = new GoGame(boardSize, player1, player2);
     player1.setGame(newGame);
     player2.setGame(newGame);
     wait(500);
@@ -0,0 +1,185 @@
+package com.nedap.go.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.nedap.go.gamelogic.Goban;
+import com.nedap.go.gamelogic.Stone;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class MonteCarloTreeSearchTest {
+
+  private Goban goban;
+  private long hash;
+
+  /**
+   * A black stone on 12 with white stones on 7, 11 and 13: white captures it with 17.
+   */
+
+  @BeforeEach
+  void setUp() {
+    goban = new Goban(5);
+    goban.placeStone(12, Stone.BLACK);
+    goban.placeStone(7, Stone.WHITE);
+    goban.placeStone(11, Stone.WHITE);
+    goban.placeStone(13, Stone.WHITE);
+    hash = goban.getHash();
+  }
+
+  @Test
+  void testBudget() {
+    MonteCarloTreeSearch search = new MonteCarloTreeSearch(0, 500, new Random(5));
+    search.search(goban, Stone.WHITE);
+    assertEquals(500, search.getPlayouts());
+    assertTrue(search.getPlayoutsPerSecond() > 0);
+    assertEquals(hash, goban.getHash());
+    assertThrows(IllegalArgumentException.class, () -> new MonteCarloTreeSearch(0, 0));
+    assertThrows(IllegalArgumentException.class,
+        () -> new MonteCarloTreeSearch(0, 10, 0, new Random(5)));
+  }
+
+  @Test
+  void testUct() {
+    MonteCarloTreeSearch uct = new MonteCarloTreeSearch(0, 3200, new Random(5));
+    uct.setRaveEquivalence(0);
+    assertEquals(17, uct.search(goban, Stone.WHITE));
+    assertEquals(hash, goban.getHash());
+    assertThrows(IllegalArgumentException.class, () -> uct.setRaveEquivalence(-1));
+  }
+
+  @Test
+  void testRave() {
+    MonteCarloTreeSearch rave = new MonteCarloTreeSearch(0, 800, new Random(5));
+    assertEquals(17, rave.search(goban, Stone.WHITE));
+    assertEquals(hash, goban.getHash());
+  }
+
+  @Test
+  void testPassBackWhenAhead() {
+    Goban single = new Goban(5);
+    single.placeStone(12, Stone.BLACK);
+    MonteCarloTreeSearch search = new MonteCarloTreeSearch(0, 2000, new Random(5));
+    assertEquals(MonteCarloTreeSearch.PASS, search.search(single, Stone.BLACK, true));
+    assertEquals(1.0, search.getWinRate());
+  }
+
+  @Test
+  void testKo() {
+    Goban ko = new Goban(4);
+    Stone stone = Stone.BLACK;
+    for (int move : new int[] {1, 2, 4, 7, 9, 10, 15, 5, 6}) {
+      assertTrue(ko.play(move, stone));
+      stone = stone.other();
+    }
+    assertFalse(ko.isLegal(5, Stone.WHITE));
+    for (int seed = 0; seed < 5; seed++) {
+      MonteCarloTreeSearch search = new MonteCarloTreeSearch(0, 500, new Random(seed));
+      int move = search.search(ko, Stone.WHITE);
+      assertTrue(move == MonteCarloTreeSearch.PASS || ko.isLegal(move, Stone.WHITE));
+      assertEquals(500, search.getPlayouts());
+    }
+  }
+
+  /**
+   * White can capture three black stones with 18, but that recreates a position from
+   * earlier in the game, which positional superko forbids. The position is reached by
+   * playing it, playing two more moves and then rearranging the stones with placeStone,
+   * which does not record history, so simple ko alone would allow the capture.
+   */
+
+  @Test
+  void testPositionalSuperko() {
+    Goban superko = new Goban(5, true);
+    for (int position : new int[] {6, 7, 8, 10, 14, 16, 17, 18}) {
+      assertTrue(superko.play(position, Stone.WHITE));
+    }
+    assertTrue(superko.play(0, Stone.BLACK));
+    assertTrue(superko.play(4, Stone.WHITE));
+    for (int position : new int[] {0, 4, 18}) {
+      superko.placeStone(position, Stone.EMPTY);
+    }
+    for (int position : new int[] {11, 12, 13}) {
+      superko.placeStone(position, Stone.BLACK);
+    }
+    Goban simpleKo = new Goban(5);
+    simpleKo.copyFrom(superko);
+    assertTrue(simpleKo.isLegal(18, Stone.WHITE));
+    assertFalse(superko.isLegal(18, Stone.WHITE));
+
+    MonteCarloTreeSearch search = new MonteCarloTreeSearch(0, 1000, new Random(5));
+    assertEquals(18, search.search(simpleKo, Stone.WHITE));
+    int move = search.search(superko, Stone.WHITE);
+    assertTrue(move == MonteCarloTreeSearch.PASS || superko.isLegal(move, Stone.WHITE));
+  }
+
+  /**
+   * The threads of TREE and ROOT update shared statistics in whatever order they are
+   * scheduled, so a seed does not fix the chosen move; only the playout budget, the board
+   * and the bookkeeping are checked.
+   */
+
+  @Test
+  void testTreeParallel() {
+    MonteCarloTreeSearch parallel = new MonteCarloTreeSearch(0, 4000, 4, new Random(5));
+    assertLegal(parallel.search(goban, Stone.WHITE));
+    assertEquals(4000, parallel.getPlayouts());
+    assertEquals(4, parallel.getThreads());
+    assertTrue(parallel.getLoadBalance() > 0 && parallel.getLoadBalance() <= 1);
+    assertEquals(hash, goban.getHash());
+  }
+
+  @Test
+  void testRootParallel() {
+    MonteCarloTreeSearch parallel =
+        new MonteCarloTreeSearch(0, 4000, 4, SearchMode.ROOT, new Random(5));
+    assertLegal(parallel.search(goban, Stone.WHITE));
+    assertEquals(4000, parallel.getPlayouts());
+    assertTrue(parallel.getLoadBalance() > 0 && parallel.getLoadBalance() <= 1);
+    assertEquals(0, parallel.getCollisions());
+    assertEquals(hash, goban.getHash());
+  }
+
+  /**
+   * In LEAF mode only the calling thread walks and updates the tree, and every playout uses
+   * the random generator of its own worker, so the result is the same in every run.
+   */
+
+  @Test
+  void testLeafParallel() {
+    MonteCarloTreeSearch parallel =
+        new MonteCarloTreeSearch(0, 4000, 4, SearchMode.LEAF, new Random(5));
+    assertEquals(17, parallel.search(goban, Stone.WHITE));
+    assertEquals(4000, parallel.getPlayouts());
+    assertEquals(0, parallel.getCollisions());
+    assertEquals(hash, goban.getHash());
+
+    MonteCarloTreeSearch uneven =
+        new MonteCarloTreeSearch(0, 1001, 4, SearchMode.LEAF, new Random(5));
+    uneven.search(goban, Stone.WHITE);
+    assertEquals(1001, uneven.getPlayouts());
+  }
+
+  @Test
+  void testTranspositionTable() {
+    MonteCarloTreeSearch search = new MonteCarloTreeSearch(0, 1000, new Random(5));
+    assertEquals(17, search.search(goban, Stone.WHITE));
+    assertTrue(search.getTranspositionHits() > 0);
+    assertEquals(17, search.search(goban, Stone.WHITE));
+    assertTrue(search.getTranspositionHits() > 0);
+
+    MonteCarloTreeSearch other = new MonteCarloTreeSearch(0, 1000, new Random(5));
+    other.setTranspositionTable(search.getTranspositionTable());
+    assertEquals(17, other.search(goban, Stone.WHITE));
+    other.setTranspositionTable(null);
+    assertEquals(17, other.search(goban, Stone.WHITE));
+    assertEquals(0, other.getTranspositionHits());
+  }
+
+  private void assertLegal(int move) {
+    assertTrue(move == MonteCarloTreeSearch.PASS || goban.isLegal(move, Stone.WHITE));
+  }
+}
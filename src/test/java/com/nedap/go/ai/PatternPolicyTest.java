@@ -0,0 +1,38 @@
+package com.nedap.go.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.nedap.go.gamelogic.Goban;
+import com.nedap.go.gamelogic.PatternCode;
+import com.nedap.go.gamelogic.Stone;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class PatternPolicyTest {
+
+  @Test
+  void testSelectMove() {
+    Random random = new Random(11);
+    Goban goban = new Goban(9);
+    goban.enablePatternCodes();
+    goban.placeStone(40, Stone.WHITE);
+    PatternPolicy policy = new PatternPolicy();
+    int[] moves = new int[81];
+    int count = goban.getSensibleMoves(Stone.BLACK, moves);
+    for (int i = 0; i < 20; i++) {
+      int selected = policy.selectMove(goban, Stone.BLACK, moves, count, random);
+      assertTrue(Arrays.stream(moves, 0, count).anyMatch(move -> move == selected));
+    }
+
+    Goban plain = new Goban(9);
+    assertThrows(IllegalStateException.class,
+        () -> policy.selectMove(plain, Stone.BLACK, moves, count, random));
+    assertFalse(plain.hasPatternCodes());
+    assertEquals(-1, new PatternPolicy(new int[PatternCode.PATTERNS]).selectMove(goban,
+        Stone.BLACK, moves, count, random));
+  }
+}
@@ -0,0 +1,39 @@
+package com.nedap.go.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+public class TranspositionTableTest {
+
+  @Test
+  void testAddAndProbe() {
+    TranspositionTable table = new TranspositionTable(2);
+    assertEquals(2, table.getCapacity());
+    assertEquals(0L, table.probe(42L));
+    table.add(42L, 10, 15);
+    table.add(42L, 2, 4);
+    assertEquals(12, TranspositionTable.visits(table.probe(42L)));
+    assertEquals(19, TranspositionTable.halfPoints(table.probe(42L)));
+    table.clear();
+    assertEquals(0L, table.probe(42L));
+    assertEquals(1 << 20, new TranspositionTable(1_000_000).getCapacity());
+    assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(0));
+  }
+
+  @Test
+  void testReplacement() {
+    TranspositionTable table = new TranspositionTable(2);
+    table.add(42L, 12, 19);
+    table.add(7L, 1, 2);
+    table.add(8L, 1, 0);
+    assertEquals(12, TranspositionTable.visits(table.probe(42L)));
+    assertEquals(0L, table.probe(7L));
+    assertEquals(1, TranspositionTable.visits(table.probe(8L)));
+    table.add(9L, 20, 40);
+    assertEquals(20, TranspositionTable.visits(table.probe(9L)));
+    assertEquals(12, TranspositionTable.visits(table.probe(42L)));
+    assertEquals(0L, table.probe(8L));
+  }
+}
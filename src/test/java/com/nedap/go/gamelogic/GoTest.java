@@ -1,10 +1,19 @@
 package com.nedap.go.gamelogic;
 
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestClassOrder;
@@ -218,7 +227,7 @@ public class GoTest {
   }
 
   @Test
-  void testKOrule() {
+  void testKOrule() throws IllegalMoveException, NotYourTurnException {
     int[] moves = {11, 19, 21, 29};
     int[] oppMoves = {12, 22, 30};
     int[] testMoves = {0, 11, 19, 21, 29};
@@ -228,53 +237,638 @@ public class GoTest {
     game.makeBulkMoves(moves, player1);
     game.makeBulkMoves(oppMoves, player2);
     game.setTurn();
-    try {
-      game.makeMove(2, 2, player2);
-    } catch (IllegalMoveException | NotYourTurnException e) {
-      e.printStackTrace();
-    }
+    game.makeMove(2, 2, player2);
     assertThrows(IllegalMoveException.class, () -> game.makeMove(2, 3, player1));
-    try {
-      game.makeMove(0, player1);
-      game.makeMove(1, player2);
-      game.makeMove(2, 3, player1);
-    } catch (IllegalMoveException | NotYourTurnException e) {
-      e.printStackTrace();
-    }
+    game.makeMove(0, player1);
+    game.makeMove(1, player2);
+    game.makeMove(2, 3, player1);
     assertEquals(gobanCopy.toString(), game.toString());
   }
 
   @Test
-  void testMultipleSelfCapture() {
+  void testMultipleSelfCapture() throws IllegalMoveException, NotYourTurnException {
     int[] moves = {10, 11, 19, 20, 29};
     int[] oppMoves = {0, 1, 2, 3, 9, 12, 18, 21, 28, 31, 38, 39, 40};
     gobanCopy.makeBulkMoves(oppMoves, player2);
     game.makeBulkMoves(moves, player1);
     game.makeBulkMoves(oppMoves, player2);
     System.out.println(game.toString());
-    try {
-      game.makeMove(3, 3, player1);
-    } catch (IllegalMoveException | NotYourTurnException e) {
-      e.printStackTrace();
-    }
+    game.makeMove(3, 3, player1);
     assertEquals(gobanCopy.toString(), game.toString());
   }
 
   @Test
-  void testSuicideFullBoard() {
+  void testSuicideFullBoard() throws IllegalMoveException, NotYourTurnException {
     int[] oppMoves = new int[80];
     for (int i = 1; i < game.getBoardSize() * game.getBoardSize() - 1; i++) {
       oppMoves[i] = i;
     }
     game.makeBulkMoves(oppMoves, player2);
-    try {
-      gobanCopy.makeMove(80, Stone.BLACK);
-      game.makeMove(80, player1);
-    } catch (IllegalMoveException | NotYourTurnException e) {
-      e.printStackTrace();
+    gobanCopy.makeMove(80, Stone.BLACK);
+    game.makeMove(80, player1);
+    assertEquals(gobanCopy.toString(), game.toString());
+
+  }
+
+  @Test
+  void testBitGobanMatchesGoban() throws IllegalMoveException {
+    Random random = new Random(42);
+    int[] boardSizes = {9, 13, 19, 25};
+    for (int game = 0; game < 20; game++) {
+      int boardSize = boardSizes[game % boardSizes.length];
+      Goban goban = new Goban(boardSize);
+      BitGoban bitGoban = new BitGoban(boardSize);
+      Stone stone = Stone.BLACK;
+      for (int move = 0; move < boardSize * boardSize * 2; move++) {
+        List<Integer> validMoves = goban.getValidMoves(stone);
+        assertEquals(validMoves, bitGoban.getValidMoves(stone));
+        if (validMoves.isEmpty()) {
+          break;
+        }
+        int position = validMoves.get(random.nextInt(validMoves.size()));
+        goban.makeMove(position, stone);
+        bitGoban.makeMove(position, stone);
+        assertEquals(goban.toString(), bitGoban.toString());
+        stone = stone.other();
+      }
     }
+  }
+
+  @Test
+  void testHashMatchesPosition() {
+    int[] moves = {12, 13, 14, 21, 22, 23, 30, 31, 32};
+    int[] oppMoves = {3, 4, 5, 11, 15, 20, 24, 29, 33, 39, 40, 41};
+    gobanCopy.makeBulkMoves(oppMoves, player2);
+    game.makeBulkMoves(moves, player1);
+    game.makeBulkMoves(oppMoves, player2);
     assertEquals(gobanCopy.toString(), game.toString());
+    assertEquals(gobanCopy.getHash(), game.getGoban().getHash());
+    assertEquals(0L, new Goban(9).getHash());
+  }
+
+  @Test
+  void testPositionalSuperko() throws IllegalMoveException {
+    Goban simpleKo = new Goban(5);
+    Goban superko = new Goban(5, true);
+    for (Goban goban : new Goban[] {simpleKo, superko}) {
+      for (int position : new int[] {5, 6, 7, 3}) {
+        goban.makeMove(position, Stone.WHITE);
+      }
+      goban.makeMove(0, Stone.BLACK);
+      goban.makeMove(1, Stone.BLACK);
+    }
+    simpleKo.makeMove(2, Stone.BLACK);
+    assertEquals(Stone.EMPTY, simpleKo.getStone(0));
+    assertThrows(IllegalMoveException.class, () -> superko.makeMove(2, Stone.BLACK));
+    assertEquals(Stone.BLACK, superko.getStone(0));
+  }
+
+  @Test
+  void testCopyKeepsKoHistory() {
+    Goban goban = new Goban(4);
+    Stone stone = Stone.BLACK;
+    for (int move : new int[] {1, 2, 4, 7, 9, 10, 15, 5, 6}) {
+      assertTrue(goban.play(move, stone));
+      stone = stone.other();
+    }
+    Goban copy = goban.gobanCopy();
+    assertEquals(goban.getPosition(), copy.getPosition());
+    assertFalse(copy.isPositionalSuperko());
+    assertFalse(copy.play(5, Stone.WHITE));
+    assertTrue(copy.play(14, Stone.WHITE));
+
+    Goban target = new Goban(4);
+    target.copyFrom(goban);
+    assertEquals(goban.getPosition(), target.getPosition());
+    assertEquals(0, target.getMoveCount());
+    assertFalse(target.play(5, Stone.WHITE));
+    assertTrue(target.play(14, Stone.WHITE));
+    assertThrows(IllegalArgumentException.class, () -> target.copyFrom(new Goban(5)));
+
+    Goban superko = new Goban(5, true);
+    for (int position : new int[] {5, 6, 7, 3}) {
+      assertTrue(superko.play(position, Stone.WHITE));
+    }
+    assertTrue(superko.play(0, Stone.BLACK));
+    assertTrue(superko.play(1, Stone.BLACK));
+    Goban superkoCopy = superko.gobanCopy();
+    assertTrue(superkoCopy.isPositionalSuperko());
+    assertFalse(superkoCopy.play(2, Stone.BLACK));
+  }
+
+  @Test
+  void testPlayAndUndo() {
+    Random random = new Random(7);
+    Goban goban = new Goban(9, true);
+    List<String> positions = new ArrayList<>();
+    List<Long> hashes = new ArrayList<>();
+    Stone stone = Stone.BLACK;
+    for (int move = 0; move < 200; move++) {
+      List<Integer> validMoves = goban.getValidMoves(stone);
+      if (validMoves.isEmpty()) {
+        break;
+      }
+      positions.add(goban.toString());
+      hashes.add(goban.getHash());
+      goban.play(validMoves.get(random.nextInt(validMoves.size())), stone);
+      stone = stone.other();
+    }
+    assertEquals(positions.size(), goban.getMoveCount());
+    for (int move = positions.size() - 1; move >= 0; move--) {
+      goban.undo();
+      assertEquals(positions.get(move), goban.toString());
+      assertEquals(hashes.get(move), goban.getHash());
+    }
+    assertThrows(IllegalStateException.class, goban::undo);
+  }
+
+  @Test
+  void testStoneChain() {
+    int[] moves = {10, 11, 12, 20};
+    int[] oppMoves = {1, 9, 21};
+    game.makeBulkMoves(moves, player1);
+    game.makeBulkMoves(oppMoves, player2);
+    StoneChain stoneChain = game.getGoban().getStoneChain(11, Stone.BLACK);
+    assertEquals(4, stoneChain.size());
+    assertEquals(10, stoneChain.nextStone(0));
+    assertEquals(20, stoneChain.nextStone(13));
+    assertEquals(-1, stoneChain.nextStone(21));
+    assertEquals(8, stoneChain.getAdjacentCount());
+    assertEquals(5, stoneChain.getLibertyCount());
+  }
+
+  @Test
+  void testChainIndex() {
+    Goban goban = new Goban(5);
+    for (int position : new int[] {6, 8, 7}) {
+      goban.placeStone(position, Stone.BLACK);
+    }
+    assertEquals(8, goban.libertyCount(6));
+    assertEquals(8, goban.libertyCount(8));
+    int stones = 1;
+    for (int position = goban.nextStoneInChain(6); position != 6;
+        position = goban.nextStoneInChain(position)) {
+      stones += 1;
+    }
+    assertEquals(3, stones);
+
+    goban.placeStone(7, Stone.EMPTY);
+    assertEquals(4, goban.libertyCount(6));
+    assertEquals(4, goban.libertyCount(8));
+    assertEquals(6, goban.nextStoneInChain(6));
+
+    goban.placeStone(7, Stone.BLACK);
+    for (int position : new int[] {1, 2, 3, 5, 9, 11, 12}) {
+      assertTrue(goban.play(position, Stone.WHITE));
+    }
+    assertTrue(goban.isInAtari(7));
+    assertEquals(13, goban.atariLiberty(7));
+    assertTrue(goban.play(13, Stone.WHITE));
+    for (int position : new int[] {6, 7, 8}) {
+      assertEquals(Stone.EMPTY, goban.getStone(position));
+    }
+    assertEquals(8, goban.libertyCount(12));
+  }
+
+  @Test
+  void testLegalMovesWithoutSimulating() {
+    Goban goban = new Goban(5);
+    for (int position : new int[] {1, 5}) {
+      goban.placeStone(position, Stone.WHITE);
+    }
+    assertTrue(goban.isLegal(0, Stone.BLACK));
+    assertTrue(goban.play(0, Stone.BLACK));
+    assertEquals(Stone.EMPTY, goban.getStone(0));
+    assertEquals(Stone.WHITE, goban.getStone(1));
+    goban.undo();
+
+    for (int position : new int[] {2, 6, 10}) {
+      goban.placeStone(position, Stone.BLACK);
+    }
+    assertFalse(goban.isLegal(2, Stone.WHITE));
+    assertFalse(goban.isLegal(25, Stone.WHITE));
+    assertFalse(goban.isLegal(3, Stone.EMPTY));
+    String board = goban.toString();
+    long hash = goban.getHash();
+    int[] moves = new int[25];
+    assertEquals(20, goban.getLegalMoves(Stone.BLACK, moves));
+    assertEquals(20, goban.getValidMoves(Stone.BLACK).size());
+    assertEquals(board, goban.toString());
+    assertEquals(hash, goban.getHash());
+
+    assertTrue(goban.play(0, Stone.WHITE));
+    for (int position : new int[] {0, 1, 5}) {
+      assertEquals(Stone.EMPTY, goban.getStone(position));
+    }
+    goban.undo();
+    assertTrue(goban.play(0, Stone.BLACK));
+    assertEquals(Stone.EMPTY, goban.getStone(1));
+    assertEquals(Stone.EMPTY, goban.getStone(5));
+    assertEquals(Stone.BLACK, goban.getStone(0));
+
+    Goban ko = new Goban(4);
+    Stone stone = Stone.BLACK;
+    for (int move : new int[] {1, 2, 4, 7, 9, 10, 15, 5, 6}) {
+      assertTrue(ko.isLegal(move, stone));
+      assertTrue(ko.play(move, stone));
+      stone = stone.other();
+    }
+    assertFalse(ko.isLegal(5, Stone.WHITE));
+    assertTrue(ko.isLegal(14, Stone.WHITE));
+  }
+
+  @Test
+  void testScoreKeepsBoard() {
+    int[] moves = {8, 16, 24, 32, 40, 48, 56, 64, 72};
+    int[] oppMoves = {7, 15, 23, 31, 39, 47, 55, 63};
+    game.makeBulkMoves(moves, player1);
+    game.makeBulkMoves(oppMoves, player2);
+    String board = game.toString();
+    AreaScore score = game.getGoban().score();
+    assertEquals(board, game.toString());
+    assertEquals(45, score.getBlackArea());
+    assertEquals(36, score.getWhiteArea());
+    assertEquals(0, score.getNeutralPoints());
+    assertEquals(Stone.BLACK, score.getOwner(80));
+    assertEquals(Stone.WHITE, score.getOwner(0));
+    assertEquals(Stone.BLACK, score.getWinner());
+
+    AreaScorer scorer = new AreaScorer(9);
+    assertThrows(IllegalArgumentException.class, () -> scorer.score(new Goban(13)));
+    assertThrows(IllegalArgumentException.class,
+        () -> scorer.score(game.getGoban(), new Stone[25]));
+  }
+
+
+  @Test
+  void testBoardSizeLimits() {
+    assertEquals(Goban.MAX_BOARD_SIZE, new Goban(Goban.MAX_BOARD_SIZE).getBoardSize());
+    assertThrows(IllegalArgumentException.class, () -> new Goban(Goban.MAX_BOARD_SIZE + 1));
+    assertThrows(IllegalArgumentException.class, () -> new BitGoban(Goban.MIN_BOARD_SIZE - 1));
+  }
+
+  @Test
+  void testPerft() {
+    assertPerft(Perft.StartPosition.EMPTY_9X9, 81, 6480, 511920);
+    assertPerft(Perft.StartPosition.KO_5X5, 17, 270, 4039, 56239);
+    assertPerft(Perft.StartPosition.EYES_5X5, 11, 132, 1201, 11983);
+  }
+
+  private void assertPerft(Perft.StartPosition position, long... counts) {
+    Board[] boards = {position.createGoban(), position.createBitGoban()};
+    for (Board board : boards) {
+      String before = board.toString();
+      Perft perft = new Perft(board, counts.length);
+      for (int depth = 1; depth <= counts.length; depth++) {
+        assertEquals(counts[depth - 1], perft.count(position.getTurn(), depth));
+      }
+      assertEquals(before, board.toString());
+    }
+  }
+
+  @Test
+  void testReplayEngine() {
+    Random random = new Random(7);
+    List<GameRecord> records = new ArrayList<>();
+    List<Goban> expected = new ArrayList<>();
+    for (int game = 0; game < 300; game++) {
+      int boardSize = game % 3 == 0 ? 13 : 9;
+      Goban goban = new Goban(boardSize);
+      int[] legalMoves = new int[boardSize * boardSize];
+      int[] moves = new int[100];
+      for (int i = 0; i < moves.length; i++) {
+        int count = goban.getLegalMoves(i % 2 == 0 ? Stone.BLACK : Stone.WHITE, legalMoves);
+        if (count == 0 || random.nextInt(20) == 0) {
+          moves[i] = GameRecord.PASS;
+        } else {
+          moves[i] = legalMoves[random.nextInt(count)];
+          goban.play(moves[i], i % 2 == 0 ? Stone.BLACK : Stone.WHITE);
+        }
+      }
+      records.add(new GameRecord("game " + game, boardSize, moves));
+      expected.add(goban);
+    }
+    records.add(new GameRecord("illegal", 9, new int[] {40, 41, 40, 81, 39}));
+
+    List<ReplayResult> results = new ReplayEngine().replayAll(records);
+    assertEquals(records.size(), results.size());
+    for (int game = 0; game < expected.size(); game++) {
+      ReplayResult result = results.get(game);
+      Goban goban = expected.get(game);
+      assertEquals(records.get(game), result.getRecord());
+      assertEquals(0, result.getIllegalMoves().length);
+      for (int position = 0; position < goban.getBoardSize() * goban.getBoardSize();
+          position++) {
+        assertEquals(goban.getStone(position), result.getStone(position));
+      }
+      assertEquals(goban.score().toString(), result.getScore().toString());
+    }
+
+    ReplayResult illegal = results.get(results.size() - 1);
+    assertEquals(List.of(2, 3), Arrays.stream(illegal.getIllegalMoves()).boxed().toList());
+    assertEquals(Stone.BLACK, illegal.getStone(40));
+    assertEquals(Stone.WHITE, illegal.getStone(41));
+    assertEquals(Stone.BLACK, illegal.getStone(39));
+  }
+
+  @Test
+  void testPosition() {
+    Goban goban = new Goban(9);
+    Position empty = goban.getPosition();
+    assertSame(empty, goban.getPosition());
+
+    goban.play(40, Stone.BLACK);
+    goban.play(41, Stone.WHITE);
+    Position position = goban.getPosition();
+    assertNotEquals(empty, position);
+    assertEquals(Stone.BLACK, position.getStone(4, 4));
+    assertEquals(Stone.WHITE, position.getStone(41));
+    assertEquals(goban.toString(), position.toString());
+    assertEquals(goban.getHash(), position.getHash());
+
+    goban.play(42, Stone.BLACK);
+    assertEquals(Stone.EMPTY, position.getStone(42));
+    goban.undo();
+    assertEquals(position, goban.getPosition());
+    assertEquals(position.hashCode(), goban.getPosition().hashCode());
+
+    Goban other = new Goban(9);
+    other.placeStone(41, Stone.WHITE);
+    other.placeStone(40, Stone.BLACK);
+    assertEquals(position, other.getPosition());
+    goban.clear();
+    assertEquals(empty, goban.getPosition());
+  }
+
+  @Test
+  void testPassAlive() {
+    Goban goban = new Goban(5);
+    for (int row = 0; row < 5; row++) {
+      goban.placeStone(row * 5 + 1, Stone.BLACK);
+    }
+    goban.placeStone(0, Stone.WHITE);
+    goban.placeStone(13, Stone.WHITE);
+
+    Stone[] settled = new PassAliveAnalyzer(5).analyze(goban);
+    assertEquals(Stone.EMPTY, settled[1]);
+    assertEquals(Stone.EMPTY, settled[0]);
+
+    goban.placeStone(10, Stone.BLACK);
+    settled = new PassAliveAnalyzer(5).analyze(goban);
+    for (int row = 0; row < 5; row++) {
+      assertEquals(Stone.BLACK, settled[row * 5]);
+      assertEquals(Stone.BLACK, settled[row * 5 + 1]);
+      assertEquals(Stone.EMPTY, settled[row * 5 + 3]);
+    }
+
+    AreaScore score = goban.score();
+    assertEquals(10, score.getBlackArea());
+    assertEquals(1, score.getWhiteArea());
+    assertEquals(14, score.getNeutralPoints());
+    assertEquals(Stone.BLACK, score.getOwner(0));
+    assertEquals(Stone.WHITE, goban.getStone(0));
+    assertThrows(IllegalArgumentException.class,
+        () -> new PassAliveAnalyzer(9).analyze(goban));
+  }
+
+  @Test
+  void testScoreLeavesBoard() {
+    Goban goban = new Goban(5);
+    for (int position : new int[] {0, 1, 3, 4, 2}) {
+      assertTrue(goban.play(position, Stone.BLACK));
+    }
+    int[] index = goban.copyChainIndex();
+    assertTrue(Arrays.stream(index).anyMatch(parent -> index[parent] != parent));
 
+    goban.score();
+    assertArrayEquals(index, goban.copyChainIndex());
+    assertEquals(goban.findChain(0), goban.chainRoot(4));
   }
 
+  @Test
+  void testLibertiesAndAtari() {
+    Goban goban = new Goban(9);
+    goban.placeStone(40, Stone.WHITE);
+    goban.placeStone(41, Stone.WHITE);
+    goban.placeStone(31, Stone.BLACK);
+    goban.placeStone(39, Stone.BLACK);
+    assertEquals(4, goban.libertyCount(41));
+    assertEquals(0, goban.libertyCount(0));
+    assertEquals(4, goban.getLiberties(40, new int[81]));
+    assertFalse(goban.isInAtari(40));
+
+    int[] moves = new int[81];
+    assertEquals(0, goban.atariMoves(Stone.BLACK, moves));
+    goban.placeStone(32, Stone.BLACK);
+    goban.placeStone(49, Stone.BLACK);
+    assertEquals(2, goban.libertyCount(40));
+    assertEquals(2, goban.atariMoves(Stone.BLACK, moves));
+    assertEquals(92, moves[0] + moves[1]);
+    assertTrue(moves[0] == 42 || moves[0] == 50);
+
+    goban.placeStone(42, Stone.BLACK);
+    assertTrue(goban.isInAtari(40));
+    assertEquals(50, goban.atariLiberty(41));
+    assertEquals(-1, goban.atariLiberty(31));
+  }
+
+  @Test
+  void testLadder() {
+    Goban goban = new Goban(9);
+    goban.placeStone(20, Stone.WHITE);
+    goban.placeStone(11, Stone.BLACK);
+    goban.placeStone(19, Stone.BLACK);
+    LadderReader reader = new LadderReader();
+    assertEquals(-1, reader.findLadderCapture(goban, 20));
+
+    goban.placeStone(30, Stone.BLACK);
+    String before = goban.toString();
+    int atari = reader.findLadderCapture(goban, 20);
+    assertEquals(29, atari);
+    assertEquals(before, goban.toString());
+    goban.play(atari, Stone.BLACK);
+    assertTrue(reader.isCaptured(goban, 20));
+    goban.undo();
+
+    goban.placeStone(3, Stone.WHITE);
+    goban.play(29, Stone.BLACK);
+    assertFalse(reader.isCaptured(goban, 20));
+    goban.undo();
+    assertEquals(21, reader.findLadderCapture(goban, 20));
+  }
+
+  @Test
+  void testPatternCodes() {
+    Random random = new Random(11);
+    Goban goban = new Goban(9);
+    goban.enablePatternCodes();
+    assertEquals(0, goban.getPatternCode(40));
+    assertEquals(PatternCode.OFF_BOARD, PatternCode.get(goban.getPatternCode(0), 0));
+    assertEquals(PatternCode.EMPTY, PatternCode.get(goban.getPatternCode(0), 4));
+
+    int[] moves = new int[81];
+    Stone stone = Stone.BLACK;
+    for (int move = 0; move < 120; move++) {
+      int count = goban.getLegalMoves(stone, moves);
+      if (count == 0) {
+        break;
+      }
+      goban.play(moves[random.nextInt(count)], stone);
+      stone = stone.other();
+      if (move % 10 == 9) {
+        goban.undo();
+        stone = stone.other();
+      }
+
+      Goban fresh = new Goban(9);
+      for (int position = 0; position < 81; position++) {
+        fresh.placeStone(position, goban.getStone(position));
+      }
+      fresh.enablePatternCodes();
+      for (int position = 0; position < 81; position++) {
+        assertEquals(fresh.getPatternCode(position), goban.getPatternCode(position));
+      }
+    }
+
+    int code = PatternCode.with(PatternCode.with(0, 0, PatternCode.BLACK), 2,
+        PatternCode.OFF_BOARD);
+    int swapped = PatternCode.swapColours(code);
+    assertEquals(PatternCode.WHITE, PatternCode.get(swapped, 0));
+    assertEquals(PatternCode.OFF_BOARD, PatternCode.get(swapped, 2));
+    assertEquals(code, PatternCode.swapColours(swapped));
+  }
+
+  @Test
+  void testTrueEye() {
+    Goban goban = new Goban(9);
+    goban.placeStone(1, Stone.BLACK);
+    goban.placeStone(9, Stone.BLACK);
+    assertTrue(goban.isTrueEye(0, Stone.BLACK));
+    assertFalse(goban.isTrueEye(0, Stone.WHITE));
+    goban.placeStone(10, Stone.WHITE);
+    assertFalse(goban.isTrueEye(0, Stone.BLACK));
+
+    for (int position : new int[] {31, 39, 41, 49}) {
+      goban.placeStone(position, Stone.BLACK);
+    }
+    goban.placeStone(30, Stone.WHITE);
+    assertTrue(goban.isTrueEye(40, Stone.BLACK));
+    goban.placeStone(50, Stone.WHITE);
+    assertFalse(goban.isTrueEye(40, Stone.BLACK));
+    goban.placeStone(50, Stone.EMPTY);
+
+    int[] moves = new int[81];
+    int sensible = goban.getSensibleMoves(Stone.BLACK, moves);
+    assertEquals(goban.getLegalMoves(Stone.BLACK, new int[81]) - 1, sensible);
+    for (int i = 0; i < sensible; i++) {
+      assertNotEquals(40, moves[i]);
+    }
+  }
+
+  @Test
+  void testSymmetryHashes() {
+    Random random = new Random(19);
+    Goban goban = new Goban(9);
+    goban.enableSymmetryHashes();
+    assertEquals(0L, goban.getCanonicalHash());
+    BoardGeometry geometry = goban.getGeometry();
+
+    int[] moves = new int[81];
+    Stone stone = Stone.BLACK;
+    for (int move = 0; move < 80; move++) {
+      int count = goban.getLegalMoves(stone, moves);
+      if (count == 0) {
+        break;
+      }
+      goban.play(moves[random.nextInt(count)], stone);
+      stone = stone.other();
+      if (move % 10 == 9) {
+        goban.undo();
+        stone = stone.other();
+      }
+      assertEquals(goban.getHash(), goban.getSymmetryHash(0));
+      assertEquals(goban.getCanonicalHash(), goban.getPosition().getCanonicalHash());
+
+      for (int symmetry = 0; symmetry < BoardGeometry.SYMMETRIES; symmetry++) {
+        Goban transformed = new Goban(9);
+        for (int position = 0; position < 81; position++) {
+          transformed.placeStone(geometry.transform(position, symmetry),
+              goban.getStone(position));
+        }
+        transformed.enableSymmetryHashes();
+        assertEquals(goban.getSymmetryHash(symmetry), transformed.getHash());
+        assertEquals(goban.getCanonicalHash(), transformed.getCanonicalHash());
+      }
+    }
+
+    Goban other = new Goban(9);
+    other.placeStone(3, Stone.BLACK);
+    other.enableSymmetryHashes();
+    Goban mirrored = new Goban(9);
+    mirrored.placeStone(5, Stone.BLACK);
+    assertEquals(other.getCanonicalHash(), mirrored.getPosition().getCanonicalHash());
+    assertNotEquals(other.getHash(), mirrored.getHash());
+  }
+
+  @Test
+  void testBoardBatch() {
+    for (int boardSize : new int[] {5, 9}) {
+      Random random = new Random(boardSize);
+      int points = boardSize * boardSize;
+      BoardBatch batch = new BoardBatch(boardSize, 4);
+      Goban[] gobans = new Goban[4];
+      int[] boards = {0, 1, 2, 3};
+      for (int board = 0; board < 4; board++) {
+        gobans[board] = new Goban(boardSize);
+      }
+      long[] masks = new long[4 * batch.getMaskWords()];
+      int[] moves = new int[4];
+      int[] margins = new int[4];
+      boolean[] played = new boolean[4];
+      int[] legalMoves = new int[points];
+
+      Stone stone = Stone.BLACK;
+      for (int move = 0; move < 3 * points; move++) {
+        batch.legalMask(boards, 4, stone, masks);
+        for (int board = 0; board < 4; board++) {
+          int count = gobans[board].getLegalMoves(stone, legalMoves);
+          int masked = 0;
+          for (int position = 0; position < points; position++) {
+            boolean legal = (masks[board * batch.getMaskWords() + (position >>> 6)]
+                & 1L << position) != 0;
+            assertEquals(gobans[board].isLegal(position, stone), legal);
+            masked += legal ? 1 : 0;
+          }
+          assertEquals(count, masked);
+          moves[board] = random.nextInt(8) == 0 ? random.nextInt(points) : count == 0
+              ? GameRecord.PASS : legalMoves[random.nextInt(count)];
+        }
+
+        batch.play(boards, moves, 4, stone, played);
+        batch.score(boards, 4, margins);
+        for (int board = 0; board < 4; board++) {
+          boolean expected = moves[board] == GameRecord.PASS
+              || gobans[board].play(moves[board], stone);
+          assertEquals(expected, played[board]);
+          assertEquals(gobans[board].getHash(), batch.getHash(board));
+          for (int position = 0; position < points; position++) {
+            assertEquals(gobans[board].getStone(position), batch.getStone(board, position));
+          }
+          AreaScore score = new AreaScorer(boardSize).score(gobans[board]);
+          AreaScore batchScore = batch.score(board);
+          assertEquals(score.getBlackArea(), batchScore.getBlackArea());
+          assertEquals(score.getWhiteArea(), batchScore.getWhiteArea());
+          assertEquals(score.getNeutralPoints(), batchScore.getNeutralPoints());
+          assertEquals(score.getBlackArea() - score.getWhiteArea(), margins[board]);
+        }
+        stone = stone.other();
+      }
+
+      batch.copyBoard(0, 3);
+      assertEquals(batch.getHash(0), batch.getHash(3));
+      batch.clear(3);
+      assertEquals(0L, batch.getHash(3));
+      assertEquals(points, batch.legalMask(3, Stone.BLACK, masks, 0));
+    }
+  }
 }